@@ -0,0 +1,64 @@
+package com.example.soarandsorcery;
+
+import java.util.Arrays;
+
+/**
+ * Shelf packer for the sprite atlas: tallest rectangles first, left to right in
+ * rows, each row as tall as its first rectangle. Plenty for a handful of sprites.
+ */
+final class AtlasPacker {
+
+    private AtlasPacker() {
+    }
+
+    /**
+     * Places {@code widths.length} rectangles into an atlas {@code atlasWidth} wide,
+     * writing their corners to {@code outX}/{@code outY} and returning the height used.
+     * Every rectangle gets {@code padding} pixels of empty space right and below it.
+     */
+    static int pack(int[] widths, int[] heights, int atlasWidth, int padding, int[] outX, int[] outY) {
+        int n = widths.length;
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            if (widths[i] + padding > atlasWidth) {
+                throw new IllegalArgumentException("Sprite " + i + " is wider than the atlas");
+            }
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(heights[b], heights[a]));
+
+        int x = 0, y = 0, shelfHeight = 0;
+        for (int k = 0; k < n; k++) {
+            int i = order[k];
+            int w = widths[i] + padding;
+            int h = heights[i] + padding;
+
+            if (x + w > atlasWidth) {
+                y += shelfHeight;
+                x = 0;
+                shelfHeight = 0;
+            }
+
+            outX[i] = x;
+            outY[i] = y;
+            x += w;
+            shelfHeight = Math.max(shelfHeight, h);
+        }
+        return y + shelfHeight;
+    }
+
+    /** Smallest power of two that fits the widest sprite and roughly squares the total area. */
+    static int chooseWidth(int[] widths, int[] heights, int padding) {
+        long area = 0;
+        int widest = 0;
+        for (int i = 0; i < widths.length; i++) {
+            area += (long) (widths[i] + padding) * (heights[i] + padding);
+            widest = Math.max(widest, widths[i] + padding);
+        }
+        int target = Math.max(widest, (int) Math.ceil(Math.sqrt(area)));
+
+        int width = 1;
+        while (width < target) width <<= 1;
+        return width;
+    }
+}
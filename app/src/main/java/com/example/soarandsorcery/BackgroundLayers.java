@@ -0,0 +1,104 @@
+package com.example.soarandsorcery;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.LinearGradient;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Shader;
+
+/**
+ * Scenery behind the castles, painted once into bitmaps at the canvas size:
+ *
+ * <pre>
+ * sky        static, rows 0..farTop
+ * mountains  parallax tile, rows farTop..nearBase, sky baked in behind the peaks
+ * hills      parallax tile, rows nearTop..bottom, see-through above the ridge
+ * </pre>
+ *
+ * The layers only overlap in the band where the hills' ridge runs, so together they
+ * cover the screen about once, which is what the plain clear they replace costs.
+ * Each tile is as wide as the canvas and drawn with at most two blits.
+ */
+class BackgroundLayers {
+
+    static final float MOUNTAIN_SPEED = 0.2f;
+    static final float HILL_SPEED = 0.5f;
+
+    private static final float FAR_TOP = 0.55f;
+    private static final float FAR_AMPLITUDE = 0.12f;
+    private static final float NEAR_TOP = 0.74f;
+    private static final float NEAR_AMPLITUDE = 0.07f;
+    private static final int RIDGE_STEP = 4;
+
+    private final int width;
+    private final int farTop, nearTop;
+    private final Bitmap sky, mountains, hills;
+    private final Paint paint = new Paint();
+
+    BackgroundLayers(int width, int height, int skyTopColor, int skyBottomColor,
+                     int mountainColor, int hillColor, boolean hardware) {
+        this.width = width;
+        farTop = Math.round(height * FAR_TOP);
+        nearTop = Math.round(height * NEAR_TOP);
+        float nearAmplitude = height * NEAR_AMPLITUDE;
+        int nearBase = Math.min(height, (int) Math.ceil(nearTop + nearAmplitude));
+
+        // One gradient over the whole height, shifted into each bitmap, so the sky is continuous.
+        Paint skyPaint = new Paint();
+
+        Bitmap skyLayer = Bitmap.createBitmap(width, Math.max(1, farTop), Bitmap.Config.ARGB_8888);
+        skyPaint.setShader(new LinearGradient(0, 0, 0, height, skyTopColor, skyBottomColor, Shader.TileMode.CLAMP));
+        new Canvas(skyLayer).drawPaint(skyPaint);
+
+        Bitmap mountainLayer = Bitmap.createBitmap(width, Math.max(1, nearBase - farTop), Bitmap.Config.ARGB_8888);
+        Canvas c = new Canvas(mountainLayer);
+        skyPaint.setShader(new LinearGradient(0, -farTop, 0, height - farTop, skyTopColor, skyBottomColor, Shader.TileMode.CLAMP));
+        c.drawPaint(skyPaint);
+        drawRidge(c, height * FAR_AMPLITUDE, 1, mountainColor);
+
+        Bitmap hillLayer = Bitmap.createBitmap(width, Math.max(1, height - nearTop), Bitmap.Config.ARGB_8888);
+        drawRidge(new Canvas(hillLayer), nearAmplitude, 2, hillColor);
+
+        sky = hardware ? gpu(skyLayer) : skyLayer;
+        mountains = hardware ? gpu(mountainLayer) : mountainLayer;
+        hills = hardware ? gpu(hillLayer) : hillLayer;
+    }
+
+    // Fills below a ridge line that starts at the top of the bitmap.
+    private void drawRidge(Canvas canvas, float amplitude, int seed, int color) {
+        Path path = new Path();
+        path.moveTo(0, canvas.getHeight());
+        for (int x = 0; x < width; x += RIDGE_STEP) {
+            path.lineTo(x, Parallax.ridge(x, width, amplitude, seed));
+        }
+        path.lineTo(width, Parallax.ridge(width, width, amplitude, seed));
+        path.lineTo(width, canvas.getHeight());
+        path.close();
+
+        Paint fill = new Paint(Paint.ANTI_ALIAS_FLAG);
+        fill.setColor(color);
+        canvas.drawPath(path, fill);
+    }
+
+    private static Bitmap gpu(Bitmap bitmap) {
+        Bitmap copy = bitmap.copy(Bitmap.Config.HARDWARE, false);
+        if (copy == null) return bitmap;
+        bitmap.recycle();
+        return copy;
+    }
+
+    /** Draws every layer, the tiles shifted for a course scrolled {@code scroll} px. */
+    void draw(Canvas canvas, float scroll) {
+        canvas.drawBitmap(sky, 0, 0, paint);
+        drawTile(canvas, mountains, Parallax.tileOffset(scroll, MOUNTAIN_SPEED, width), farTop);
+        drawTile(canvas, hills, Parallax.tileOffset(scroll, HILL_SPEED, width), nearTop);
+    }
+
+    private void drawTile(Canvas canvas, Bitmap tile, int offset, int top) {
+        canvas.drawBitmap(tile, -offset, top, paint);
+        if (offset > 0) {
+            canvas.drawBitmap(tile, width - offset, top, paint);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.soarandsorcery;
+
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The world top list in the Firestore collection {@code world_highscores}, one
+ * document per run with a {@code name} and a {@code score}. Callbacks run on the
+ * main thread.
+ *
+ * A run's document is named after its nickname, score and end time, so a batch
+ * sent again after the app died waiting for the answer overwrites itself instead
+ * of adding the runs twice, while different runs never share a document.
+ */
+final class FirestoreLeaderboard implements WorldLeaderboard {
+
+    private static final String COLLECTION = "world_highscores";
+
+    private final FirebaseFirestore db;
+    private final CollectionReference scores;
+
+    FirestoreLeaderboard(FirebaseFirestore db) {
+        this.db = db;
+        scores = db.collection(COLLECTION);
+    }
+
+    private Query top(int limit) {
+        return scores.orderBy("score", Query.Direction.DESCENDING).limit(limit);
+    }
+
+    private static List<ScoreEntry> entries(QuerySnapshot query) {
+        List<ScoreEntry> top = new ArrayList<>();
+        for (DocumentSnapshot doc : query.getDocuments()) {
+            String name = doc.getString("name");
+            Long score = doc.getLong("score");
+            if (name == null || score == null) continue; // not written by us
+            top.add(new ScoreEntry(name, score.intValue()));
+        }
+        return top;
+    }
+
+    @Override
+    public void fetchTop(int limit, Callback<List<ScoreEntry>> callback) {
+        top(limit).get()
+                .addOnSuccessListener(query -> callback.onResult(entries(query)))
+                .addOnFailureListener(callback::onError);
+    }
+
+    @Override
+    public Registration listenTop(int limit, Callback<List<ScoreEntry>> callback) {
+        ListenerRegistration registration = top(limit).addSnapshotListener((query, error) -> {
+            if (error != null) callback.onError(error);
+            else if (query != null) callback.onResult(entries(query));
+        });
+        return registration::remove;
+    }
+
+    @Override
+    public void submitAll(List<ScoreEntry> entries, Callback<Void> callback) {
+        WriteBatch batch = db.batch();
+        for (ScoreEntry e : entries) {
+            Map<String, Object> doc = new HashMap<>();
+            doc.put("name", e.name);
+            doc.put("score", e.score);
+            batch.set(scores.document(e.name + "-" + e.score + "-" + e.millis), doc);
+        }
+
+        batch.commit()
+                .addOnSuccessListener(done -> callback.onResult(null))
+                .addOnFailureListener(callback::onError);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.soarandsorcery;
+
+/**
+ * Decides when the render target should produce frames.
+ *
+ * Only {@link State#RUNNING} draws continuously. Every other state draws on demand,
+ * and nothing is drawn at all while the host is inactive (activity paused, view
+ * detached or hidden).
+ */
+class FrameScheduler {
+
+    enum State { IDLE, COUNTDOWN, RUNNING, PAUSED, GAME_OVER }
+
+    /** Implemented by each render target. Calls may come from any thread. */
+    interface Driver {
+        /** Keep drawing one frame after another until {@link #stopFrames()}. */
+        void startFrames();
+
+        void stopFrames();
+
+        /** Draw a single frame soon. */
+        void requestFrame();
+    }
+
+    private final Driver driver;
+    private volatile State state = State.IDLE;
+    private volatile boolean active = false;
+
+    FrameScheduler(Driver driver) {
+        this.driver = driver;
+    }
+
+    State getState() {
+        return state;
+    }
+
+    boolean isActive() {
+        return active;
+    }
+
+    synchronized void setState(State next) {
+        if (state == next) return;
+        state = next;
+        update();
+    }
+
+    synchronized void setActive(boolean active) {
+        if (this.active == active) return;
+        this.active = active;
+        update();
+    }
+
+    /** Redraws once, e.g. after the countdown digit changed. Ignored while inactive. */
+    synchronized void requestFrame() {
+        if (active && state != State.RUNNING) {
+            driver.requestFrame();
+        }
+    }
+
+    /** Asked by the driver after each frame: should another one follow right away? */
+    boolean wantsNextFrame() {
+        return active && state == State.RUNNING;
+    }
+
+    private void update() {
+        if (!active) {
+            driver.stopFrames();
+        } else if (state == State.RUNNING) {
+            driver.startFrames();
+        } else {
+            driver.stopFrames();
+            driver.requestFrame();
+        }
+    }
+}
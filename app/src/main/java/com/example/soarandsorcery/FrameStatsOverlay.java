@@ -0,0 +1,113 @@
+package com.example.soarandsorcery;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+
+/**
+ * Debug readout of {@link FrameStats} in the corner of the game. The text is kept in
+ * reused char buffers and only reformatted every {@link #REFRESH_FRAMES} frames, so
+ * drawing it allocates nothing and the numbers stay readable.
+ */
+class FrameStatsOverlay {
+
+    private static final int REFRESH_FRAMES = 30;
+    private static final int LINES = 4;
+    private static final int LINE_CHARS = 64;
+    private static final float TEXT_SIZE = 32;
+
+    private final Paint textPaint = new Paint();
+    private final Paint backPaint = new Paint();
+    private final char[][] lines = new char[LINES][LINE_CHARS];
+    private final int[] lengths = new int[LINES];
+    private long formattedAt = -REFRESH_FRAMES;
+
+    // Write position while formatting a line.
+    private char[] line;
+    private int pos;
+
+    FrameStatsOverlay() {
+        textPaint.setColor(Color.WHITE);
+        textPaint.setTextSize(TEXT_SIZE);
+        textPaint.setTypeface(Typeface.MONOSPACE);
+        backPaint.setColor(0x99000000);
+    }
+
+    void draw(Canvas canvas, FrameStats stats, float x, float top) {
+        if (stats.getFrames() - formattedAt >= REFRESH_FRAMES || stats.getFrames() < formattedAt) {
+            format(stats);
+            formattedAt = stats.getFrames();
+        }
+
+        float lineHeight = TEXT_SIZE * 1.25f;
+        canvas.drawRect(x, top, x + TEXT_SIZE * 0.62f * LINE_CHARS / 2, top + lineHeight * LINES + TEXT_SIZE / 2, backPaint);
+        for (int i = 0; i < LINES; i++) {
+            canvas.drawText(lines[i], 0, lengths[i], x + TEXT_SIZE / 4, top + lineHeight * (i + 1), textPaint);
+        }
+    }
+
+    private void format(FrameStats stats) {
+        histogramLine(0, "upd  ", stats.update());
+        histogramLine(1, "draw ", stats.draw());
+        histogramLine(2, "gap  ", stats.interval());
+
+        begin(3);
+        text("jank ");
+        number(stats.getJankFrames());
+        text("  miss ");
+        number(stats.getMissedFrames());
+        text("  / ");
+        number(stats.getFrames());
+        end(3);
+    }
+
+    private void histogramLine(int index, String label, TimingHistogram h) {
+        begin(index);
+        text(label);
+        text("p50 ");
+        millis(h.percentile(0.5));
+        text(" p99 ");
+        millis(h.percentile(0.99));
+        text(" max ");
+        millis(h.max());
+        end(index);
+    }
+
+    // ---------- FORMATTING ----------
+    private void begin(int index) {
+        line = lines[index];
+        pos = 0;
+    }
+
+    private void end(int index) {
+        lengths[index] = pos;
+    }
+
+    private void text(String s) {
+        for (int i = 0; i < s.length() && pos < LINE_CHARS; i++) line[pos++] = s.charAt(i);
+    }
+
+    // Whole digits, without going through a String.
+    private void number(long value) {
+        if (value < 0) value = 0;
+        int digits = 1;
+        for (long v = value / 10; v > 0; v /= 10) digits++;
+        if (pos + digits > LINE_CHARS) return;
+        for (int i = pos + digits - 1; i >= pos; i--) {
+            line[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        pos += digits;
+    }
+
+    // Nanoseconds as milliseconds with two decimals.
+    private void millis(long nanos) {
+        long hundredths = nanos / 10_000;
+        number(hundredths / 100);
+        if (pos + 3 > LINE_CHARS) return;
+        line[pos++] = '.';
+        line[pos++] = (char) ('0' + hundredths / 10 % 10);
+        line[pos++] = (char) ('0' + hundredths % 10);
+    }
+}
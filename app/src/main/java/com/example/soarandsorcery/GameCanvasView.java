@@ -0,0 +1,49 @@
+package com.example.soarandsorcery;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.os.Handler;
+import android.view.View;
+
+/**
+ * Fallback render target: a plain View redrawn from the main thread on a fixed delay.
+ */
+class GameCanvasView extends View implements FrameScheduler.Driver {
+
+    static final int FRAME_DELAY_MILLIS = 40;
+
+    private final GameView game;
+    private final Handler handler = new Handler();
+    private final Runnable redrawRunnable = this::invalidate;
+    private int delay = FRAME_DELAY_MILLIS;
+
+    GameCanvasView(Context context, GameView game) {
+        super(context);
+        this.game = game;
+    }
+
+    @Override
+    public void startFrames() {
+        postInvalidate();
+    }
+
+    @Override
+    public void stopFrames() {
+        handler.removeCallbacks(redrawRunnable);
+    }
+
+    @Override
+    public void requestFrame() {
+        postInvalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        game.drawFrame(canvas, System.nanoTime());
+
+        handler.removeCallbacks(redrawRunnable);
+        if (game.wantsNextFrame()) {
+            handler.postDelayed(redrawRunnable, delay);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.soarandsorcery;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * Draws a {@link GameWorld} onto whatever canvas the current render target hands it,
+ * so the View and SurfaceView paths share one set of sprites and paints.
+ */
+class GameRenderer {
+
+    // Castle art is 112 px brick periods with battlements at the gap end (source rows).
+    private static final int CASTLE_CAP_ROWS = 84;
+    private static final int CASTLE_TILE_ROWS = 4 * 112;
+    private static final int GHOST_ALPHA = 90;
+    // Indexed by the ParticleSystem palette constants.
+    private static final int[] PARTICLE_COLORS = { 0xFFFFD54F, 0xFFFF7043, 0xAA9E9E9E, 0xFFFFFFFF };
+
+    private volatile SpriteAtlas atlas;
+    private BackgroundLayers scenery; // published with the atlas
+    private int knightWidth, knightHeight;
+    private int castleWidth;
+    private int canvasWidth, canvasHeight;
+    private int coinWidth, coinHeight;
+    private CollisionMask knightMask, coinMask;
+
+    private final Resources resources;
+    private final SpriteDiskCache diskCache;
+    private final boolean hardwareSprites;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final int backgroundColor;
+    private final int skyTopColor, mountainColor, hillColor;
+    private final Paint paint = new Paint();
+    private final Paint ghostPaint = new Paint();
+    private final Paint[] particlePaints = new Paint[ParticleSystem.COLORS];
+    private float[] particlePoints = new float[0];
+    private final ScoreHud hud = new ScoreHud();
+    private int effects = QualityController.EFFECTS_ALL;
+
+    GameRenderer(Context context, boolean hardwareSprites) {
+        this.resources = context.getResources();
+        this.diskCache = new SpriteDiskCache(context.getApplicationContext());
+        this.hardwareSprites = hardwareSprites;
+        backgroundColor = context.getColor(R.color.sky);
+        skyTopColor = context.getColor(R.color.sky_top);
+        mountainColor = context.getColor(R.color.mountains);
+        hillColor = context.getColor(R.color.hills);
+        ghostPaint.setAlpha(GHOST_ALPHA);
+        for (int c = 0; c < particlePaints.length; c++) {
+            particlePaints[c] = new Paint();
+            particlePaints[c].setColor(PARTICLE_COLORS[c]);
+            particlePaints[c].setStrokeCap(Paint.Cap.SQUARE);
+        }
+    }
+
+    boolean isReady() {
+        return atlas != null;
+    }
+
+    /**
+     * Decodes every sprite at its on-screen size on the loader thread, packs them into
+     * the atlas, then runs {@code onLoaded} on the main thread.
+     */
+    void loadSprites(int canvasWidth, int canvasHeight, Runnable onLoaded) {
+        SpriteLoader.runAsync(() -> {
+            setupBitmaps(canvasWidth, canvasHeight);
+            mainHandler.post(onLoaded);
+        });
+    }
+
+    private void setupBitmaps(int canvasWidth, int canvasHeight) {
+        this.canvasWidth = canvasWidth;
+        this.canvasHeight = canvasHeight;
+
+        int[] src = SpriteLoader.sourceSize(resources, R.drawable.trueknight);
+        knightWidth = canvasWidth / 10;
+        knightHeight = knightWidth * src[1] / Math.max(1, src[0]);
+
+        src = SpriteLoader.sourceSize(resources, R.drawable.coin);
+        coinWidth = canvasWidth / 15;
+        coinHeight = coinWidth * src[1] / Math.max(1, src[0]);
+
+        src = SpriteLoader.sourceSize(resources, R.drawable.flappybirdup);
+        int birdHeight = knightWidth * src[1] / Math.max(1, src[0]);
+
+        // Castles keep the art's aspect ratio now; height comes from stacking tiles.
+        castleWidth = canvasWidth / 6;
+        int[] castleSrc = SpriteLoader.sourceSize(resources, R.drawable.topcastle);
+        float scale = castleWidth / (float) Math.max(1, castleSrc[0]);
+        int capHeight = Math.max(1, Math.round(CASTLE_CAP_ROWS * scale));
+        int tileHeight = Math.max(1, Math.round(CASTLE_TILE_ROWS * scale));
+        int srcBottom = castleSrc[1];
+
+        // Indexed by the SpriteAtlas region constants.
+        SpriteLoader.Request[] requests = {
+                new SpriteLoader.Request(R.drawable.trueknight, knightWidth, knightHeight),
+                new SpriteLoader.Request(R.drawable.coin, coinWidth, coinHeight),
+                new SpriteLoader.Request(R.drawable.flappybirdup, knightWidth, birdHeight),
+                new SpriteLoader.Request(R.drawable.topcastle,
+                        srcBottom - CASTLE_CAP_ROWS, srcBottom, castleWidth, capHeight),
+                new SpriteLoader.Request(R.drawable.topcastle,
+                        srcBottom - CASTLE_CAP_ROWS - CASTLE_TILE_ROWS, srcBottom - CASTLE_CAP_ROWS,
+                        castleWidth, tileHeight),
+                new SpriteLoader.Request(R.drawable.bottomcastle,
+                        0, CASTLE_CAP_ROWS, castleWidth, capHeight),
+                new SpriteLoader.Request(R.drawable.bottomcastle,
+                        CASTLE_CAP_ROWS, CASTLE_CAP_ROWS + CASTLE_TILE_ROWS, castleWidth, tileHeight),
+        };
+        String configKey = SpriteDiskCache.configKey(canvasWidth, canvasHeight,
+                resources.getDisplayMetrics().densityDpi);
+        // Software pixels: the atlas is assembled from them and then moved to the GPU as a whole.
+        Bitmap[] sprites = SpriteLoader.loadAll(resources, diskCache, configKey, requests, false);
+
+        for (Bitmap sprite : sprites) {
+            if (sprite == null) return;
+        }
+
+        // Castle art is opaque edge to edge, so castles collide as plain rectangles.
+        knightMask = maskOf(sprites[SpriteAtlas.KNIGHT]);
+        coinMask = maskOf(sprites[SpriteAtlas.COIN]);
+
+        scenery = new BackgroundLayers(canvasWidth, canvasHeight,
+                skyTopColor, backgroundColor, mountainColor, hillColor, hardwareSprites);
+
+        SpriteAtlas built = new SpriteAtlas(sprites, hardwareSprites);
+        built.setClip(canvasWidth, canvasHeight);
+        for (Paint p : particlePaints) {
+            p.setStrokeWidth(Math.max(2, canvasWidth / 160));
+        }
+        atlas = built;
+    }
+
+    /** Which optional effects to draw, one of the {@link QualityController} EFFECTS_ levels. */
+    void setEffects(int effects) {
+        this.effects = effects;
+    }
+
+    void applyDimensions(GameWorld world) {
+        world.setDimensions(canvasWidth, canvasHeight,
+                knightWidth, knightHeight, castleWidth, coinWidth, coinHeight);
+        world.setCollisionMasks(knightMask, coinMask);
+    }
+
+    private static CollisionMask maskOf(Bitmap sprite) {
+        int w = sprite.getWidth();
+        int h = sprite.getHeight();
+        int[] pixels = new int[w * h];
+        sprite.getPixels(pixels, 0, w, 0, 0, w, h);
+        return CollisionMask.fromArgb(pixels, w, h, CollisionMask.DEFAULT_ALPHA_THRESHOLD);
+    }
+
+    /**
+     * Ghosts 0..ghostCount-1 are drawn see-through under the live knight while they
+     * still fly; {@code particles} (may be null) go on top of the knight.
+     */
+    void draw(Canvas canvas, GameWorld world, Ghost[] ghosts, int ghostCount, ParticleSystem particles,
+              FrameScheduler.State state, int countdownValue) {
+        drawBackground(canvas, world);
+
+        switch (state) {
+            case IDLE:
+                drawKnight(canvas, world);
+                return;
+
+            case COUNTDOWN:
+            case PAUSED:
+                drawTubes(canvas, world);
+                drawKnight(canvas, world);
+                if (state == FrameScheduler.State.COUNTDOWN) {
+                    hud.drawCountdown(canvas, countdownValue, canvasWidth / 2f, canvasHeight / 2f);
+                }
+                return;
+
+            default:
+                drawTubes(canvas, world);
+                drawCoins(canvas, world);
+                if (effects >= QualityController.EFFECTS_SOME) {
+                    drawGhosts(canvas, ghosts, ghostCount, world.getAlpha());
+                }
+                drawKnight(canvas, world);
+                if (particles != null && effects >= QualityController.EFFECTS_ALL) {
+                    drawParticles(canvas, particles);
+                }
+
+                hud.drawScore(canvas, world.getScore(), 50, 150);
+        }
+    }
+
+    // The scenery is an optional effect; the plain sky colour is the cheapest frame.
+    private void drawBackground(Canvas canvas, GameWorld world) {
+        if (effects >= QualityController.EFFECTS_ALL) {
+            scenery.draw(canvas, world.getScrollRenderX());
+        } else {
+            canvas.drawColor(backgroundColor);
+        }
+    }
+
+    private void drawKnight(Canvas canvas, GameWorld world) {
+        atlas.draw(canvas, SpriteAtlas.KNIGHT, world.getKnightX(), Math.round(world.getKnightRenderY()), paint);
+    }
+
+    private void drawGhosts(Canvas canvas, Ghost[] ghosts, int count, float alpha) {
+        for (int i = 0; i < count; i++) {
+            Ghost g = ghosts[i];
+            if (g.isFlying()) {
+                atlas.draw(canvas, SpriteAtlas.KNIGHT, g.getKnightX(), Math.round(g.getKnightRenderY(alpha)), ghostPaint);
+            }
+        }
+    }
+
+    // One drawPoints batch per palette colour, from a buffer sized once for the whole pool.
+    private void drawParticles(Canvas canvas, ParticleSystem particles) {
+        if (particles.count() == 0) return;
+        if (particlePoints.length < particles.capacity() * 2) {
+            particlePoints = new float[particles.capacity() * 2];
+        }
+        for (int c = 0; c < ParticleSystem.COLORS; c++) {
+            int n = particles.fillPoints(c, particlePoints);
+            if (n > 0) canvas.drawPoints(particlePoints, 0, n, particlePaints[c]);
+        }
+    }
+
+    private void drawTubes(Canvas canvas, GameWorld world) {
+        for (int i = 0, n = world.getTubeCount(); i < n; i++) {
+            int x = Math.round(world.getTubeRenderX(i));
+            int gapTop = world.getGapTop(i);
+            atlas.drawTopCastle(canvas, x, gapTop, paint);
+            atlas.drawBottomCastle(canvas, x, gapTop + world.getGap(i), paint);
+        }
+    }
+
+    private void drawCoins(Canvas canvas, GameWorld world) {
+        for (int i = 0, n = world.getPickupCount(); i < n; i++) {
+            if (world.isPickupActive(i) && world.getPickupType(i) == GameWorld.PICKUP_COIN) {
+                atlas.draw(canvas, SpriteAtlas.COIN, Math.round(world.getPickupRenderX(i)), world.getPickupY(i), paint);
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.soarandsorcery;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.Surface;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+
+/**
+ * Default render target: draws on a dedicated thread, one frame per vsync while the
+ * game is running and one frame per request otherwise.
+ *
+ * The render thread lives exactly as long as the surface does, so hiding the game
+ * container or leaving the activity stops it.
+ */
+class GameSurfaceView extends SurfaceView implements SurfaceHolder.Callback, FrameScheduler.Driver {
+
+    private final GameView game;
+    private volatile RenderThread renderThread;
+
+    GameSurfaceView(Context context, GameView game) {
+        super(context);
+        this.game = game;
+        getHolder().addCallback(this);
+    }
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        float refreshRate = maxRefreshRate();
+        if (refreshRate > 0f) {
+            holder.getSurface().setFrameRate(refreshRate, Surface.FRAME_RATE_COMPATIBILITY_DEFAULT);
+        }
+
+        renderThread = new RenderThread(holder);
+        renderThread.start();
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        requestFrame();
+    }
+
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        RenderThread thread = renderThread;
+        renderThread = null;
+        if (thread != null) {
+            thread.shutdown();
+        }
+    }
+
+    // ---------- FrameScheduler.Driver ----------
+    @Override
+    public void startFrames() {
+        requestFrame();
+    }
+
+    @Override
+    public void stopFrames() {
+        // Nothing to cancel: the render thread asks game.wantsNextFrame() after every frame.
+    }
+
+    @Override
+    public void requestFrame() {
+        RenderThread thread = renderThread;
+        if (thread != null) {
+            thread.requestFrame();
+        }
+    }
+
+    /**
+     * Renders at {@code scale} of the view's size and lets the compositor stretch the
+     * result over the view, which costs nothing on the render thread. Main thread only.
+     */
+    void setRenderScale(float scale) {
+        if (scale >= 1f || getWidth() == 0) {
+            getHolder().setSizeFromLayout();
+        } else {
+            getHolder().setFixedSize(Math.max(1, Math.round(getWidth() * scale)),
+                    Math.max(1, Math.round(getHeight() * scale)));
+        }
+    }
+
+    // Highest rate the display offers at its current resolution (60/90/120 Hz...).
+    private float maxRefreshRate() {
+        Display display = getDisplay();
+        if (display == null) return 0f;
+
+        Display.Mode current = display.getMode();
+        float best = current.getRefreshRate();
+        for (Display.Mode mode : display.getSupportedModes()) {
+            if (mode.getPhysicalWidth() == current.getPhysicalWidth()
+                    && mode.getPhysicalHeight() == current.getPhysicalHeight()) {
+                best = Math.max(best, mode.getRefreshRate());
+            }
+        }
+        return best;
+    }
+
+    private class RenderThread extends HandlerThread implements Choreographer.FrameCallback {
+
+        private final SurfaceHolder holder;
+        private volatile Handler threadHandler;
+        private Choreographer choreographer;
+        private boolean framePending = false;   // render thread only
+        private volatile boolean running = true;
+
+        private final Runnable scheduleFrame = this::scheduleFrame;
+
+        RenderThread(SurfaceHolder holder) {
+            super("GameRender");
+            this.holder = holder;
+        }
+
+        @Override
+        protected void onLooperPrepared() {
+            choreographer = Choreographer.getInstance();
+            threadHandler = new Handler(getLooper());
+            // A fresh surface is blank, so it always gets one frame.
+            scheduleFrame();
+        }
+
+        void requestFrame() {
+            Handler h = threadHandler;
+            if (h != null) {
+                h.post(scheduleFrame);
+            }
+        }
+
+        private void scheduleFrame() {
+            if (!running || framePending) return;
+            framePending = true;
+            choreographer.postFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            framePending = false;
+            if (!running) return;
+
+            Canvas canvas = holder.lockHardwareCanvas();
+            if (canvas != null) {
+                try {
+                    game.drawFrame(canvas, frameTimeNanos);
+                } finally {
+                    holder.unlockCanvasAndPost(canvas);
+                }
+            }
+
+            if (game.wantsNextFrame()) {
+                scheduleFrame();
+            }
+        }
+
+        // Blocks until the thread is gone, so the surface is never drawn to after it is destroyed.
+        void shutdown() {
+            running = false;
+            quitSafely();
+            try {
+                join();
+            } catch (InterruptedException e) {
+                Log.e("GameSurfaceView", "Interrupted while stopping render thread", e);
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -1,340 +1,594 @@
 package com.example.soarandsorcery;
 
 import android.content.Context;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
 import android.os.Handler;
 import android.util.Log;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewTreeObserver;
+import android.widget.FrameLayout;
 
-import java.util.Random;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-public class GameView extends View {
+public class GameView extends FrameLayout {
+
+    private static final String TAG = "GameView";
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    private static final int FRAME_REPORTS_KEPT = 20;
+    private static final int MAX_PARTICLES = 4096;
 
     public interface OnGameOverListener {
         void onGameOver(int score);
     }
 
-    private Bitmap knight, topTube, bottomTube, coin;
-    private int knightX, knightY, knightWidth, knightHeight;
-    private int castleWidth, castleHeight;
-    private int canvasWidth, canvasHeight;
-
-    private int gap;
-    private int minGap;
-    private int gapShrinkStep;
-    private int shrinkEvery = 12;
-    private int setsPassed = 0;
+    /** How frames reach the screen; chosen once when the view is built. */
+    public enum RenderMode {
+        /** Own render thread on a SurfaceView, paced by Choreographer (vsync). */
+        SURFACE,
+        /** Plain View redrawn from the main thread; the fallback path. */
+        VIEW
+    }
 
-    private int gravity = 3;
-    private int velocity = 0;
-    private int castleVelocity = 8;
-    private int delay = 40;
+    // Lays out castles and coins ahead of the knight and saves replays, off the render thread.
+    private static final ExecutorService background = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "GameBackground");
+        t.setPriority(Thread.NORM_PRIORITY - 1);
+        return t;
+    });
 
-    private int[] tubeX = new int[2];
-    private int[] tubeY = new int[2];
-    private boolean[] passed = new boolean[2];
+    private final GameWorld world = new GameWorld();
+    private final ParticleSystem particles = new ParticleSystem(MAX_PARTICLES); // guarded by world
+    private final GameRenderer renderer;
+    private final RenderMode renderMode;
+    private final View renderTarget;
+    private final FrameScheduler scheduler;
 
-    private int coinX, coinY;
-    private int coinWidth, coinHeight;
-    private boolean coinActive = false;
-    private int tubesPassedCount = 0;
+    private final Handler handler = new Handler();
 
-    private int score = 0;
-    private Paint scorePaint;
+    // Guarded by world: read on the render thread, written from the UI thread.
+    private int countdownValue = 3;
+    private boolean gameOverReported = false;
 
-    private final Handler handler = new Handler();
-    private final Paint paint = new Paint();
-    private final Random random = new Random();
+    // Guarded by world, like the countdown.
+    private ReplayStore replays;
+    private Ghost[] ghosts = new Ghost[0];
+    private GameWorld[] ghostWorlds = new GameWorld[0];
+    private int ghostCount = 0;
+    // Bumped by every reset and setReplays, so ghosts still loading for an earlier run are thrown away.
+    private int ghostLoad = 0;
 
-    private int tubeSpacing;
+    // Guarded by world. Null unless enabled, so a release build pays one null check per frame.
+    private FrameStats frameStats;
+    private FrameStatsOverlay frameStatsOverlay;
+    private File frameReportDir;
 
-    private boolean gameRunning = false;
-    private boolean countdownRunning = false;
-    private int countdownValue = 3;
-    private Paint countdownPaint = new Paint();
+    // Guarded by world. Steps render resolution and effects with frame pressure (surface mode only).
+    private QualityController quality;
 
     private OnGameOverListener onGameOverCallback;
-    private boolean viewReady = false;
-
-    private Runnable redrawRunnable;
+    private volatile boolean viewReady = false;
+    private boolean hostResumed = true;
 
     public GameView(Context context) {
+        this(context, RenderMode.SURFACE);
+    }
+
+    public GameView(Context context, RenderMode renderMode) {
         super(context);
+        this.renderMode = renderMode;
+        world.setCourseExecutor(background);
+        world.setParticles(particles);
 
-        try {
-            knight = BitmapFactory.decodeResource(getResources(), R.drawable.trueknight);
-            topTube = BitmapFactory.decodeResource(getResources(), R.drawable.topcastle);
-            bottomTube = BitmapFactory.decodeResource(getResources(), R.drawable.bottomcastle);
-            coin = BitmapFactory.decodeResource(getResources(), R.drawable.coin);
-        } catch (Exception e) {
-            Log.e("GameView", "Error loading bitmaps", e);
+        renderer = new GameRenderer(context, true);
+        if (renderMode == RenderMode.SURFACE) {
+            quality = new QualityController(framePeriodNanos());
         }
 
-        scorePaint = new Paint();
-        scorePaint.setColor(Color.WHITE);
-        scorePaint.setTextSize(80);
-        scorePaint.setFakeBoldText(true);
-
-        countdownPaint.setColor(Color.WHITE);
-        countdownPaint.setTextSize(200);
-        countdownPaint.setTextAlign(Paint.Align.CENTER);
-
-        redrawRunnable = this::invalidate;
+        if (renderMode == RenderMode.SURFACE) {
+            GameSurfaceView surfaceView = new GameSurfaceView(context, this);
+            scheduler = new FrameScheduler(surfaceView);
+            renderTarget = surfaceView;
+        } else {
+            GameCanvasView canvasView = new GameCanvasView(context, this);
+            scheduler = new FrameScheduler(canvasView);
+            renderTarget = canvasView;
+        }
+        addView(renderTarget, new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
 
         getViewTreeObserver().addOnGlobalLayoutListener(
                 new ViewTreeObserver.OnGlobalLayoutListener() {
                     @Override
                     public void onGlobalLayout() {
-                        if (!viewReady && getWidth() > 0 && getHeight() > 0) {
-                            canvasWidth = getWidth();
-                            canvasHeight = getHeight();
-                            viewReady = true;
-
-                            setupBitmaps();
-                            resetGame();
-
+                        if (getWidth() > 0 && getHeight() > 0) {
                             getViewTreeObserver().removeOnGlobalLayoutListener(this);
+                            renderer.loadSprites(getWidth(), getHeight(), GameView.this::onSpritesLoaded);
                         }
                     }
                 }
         );
     }
 
-    // ✅ Castles now scale to full screen height
-    private void setupBitmaps() {
-        if (knight != null) {
-            int w = canvasWidth / 10;
-            int h = w * knight.getHeight() / knight.getWidth();
-            knight = Bitmap.createScaledBitmap(knight, w, h, false);
-            knightWidth = knight.getWidth();
-            knightHeight = knight.getHeight();
+    private void onSpritesLoaded() {
+        synchronized (world) {
+            renderer.applyDimensions(world);
         }
+        resetGame();
+        viewReady = true;
+        scheduler.requestFrame();
+    }
 
-        if (topTube != null && bottomTube != null) {
-            int tubeWidth = canvasWidth / 6;
-            int tubeHeight = canvasHeight;   // full screen height ✅
-
-            topTube = Bitmap.createScaledBitmap(topTube, tubeWidth, tubeHeight, false);
-            bottomTube = Bitmap.createScaledBitmap(bottomTube, tubeWidth, tubeHeight, false);
+    public RenderMode getRenderMode() {
+        return renderMode;
+    }
 
-            castleWidth = topTube.getWidth();
-            castleHeight = topTube.getHeight();
+    /**
+     * Records every run into {@code store}, and lets a run started with
+     * {@link #startCountdown(OnGameOverListener, boolean)} race up to {@code ghosts}
+     * of the best saved runs: that run takes the best run's course, and the saved
+     * runs on that course fly along with it.
+     */
+    public void setReplays(ReplayStore store, int ghosts) {
+        synchronized (world) {
+            for (int i = 0; i < ghostCount; i++) this.ghosts[i].close();
+            ghostCount = 0;
+            ghostLoad++;
+            replays = store;
+            this.ghosts = new Ghost[ghosts];
+            ghostWorlds = new GameWorld[ghosts];
+            for (int i = 0; i < ghosts; i++) {
+                ghostWorlds[i] = new GameWorld();
+                ghostWorlds[i].setCourseExecutor(background);
+            }
         }
+    }
 
-        if (coin != null) {
-            int w = canvasWidth / 15;
-            int h = w * coin.getHeight() / coin.getWidth();
-            coin = Bitmap.createScaledBitmap(coin, w, h, false);
-            coinWidth = coin.getWidth();
-            coinHeight = coin.getHeight();
+    /**
+     * Times every running frame's update, draw and frame-to-frame interval, counts
+     * jank and missed frames, and writes a report per run into {@code reportDir}
+     * (null for none). {@code overlay} also shows the numbers on screen. Meant for
+     * debug builds; without this call nothing is measured.
+     */
+    public void enableFrameStats(File reportDir, boolean overlay) {
+        long periodNanos = framePeriodNanos();
+        synchronized (world) {
+            frameStats = new FrameStats(periodNanos);
+            frameStatsOverlay = overlay ? new FrameStatsOverlay() : null;
+            frameReportDir = reportDir;
         }
+    }
 
-        gap = canvasHeight / 3;
-        minGap = canvasHeight / 6;
-        gapShrinkStep = canvasHeight / 40;
+    /**
+     * Lets the game render below the view's resolution and skip optional effects while
+     * frames run late, and go back up once there is headroom. On by default in
+     * {@link RenderMode#SURFACE}; the View path always draws at full size.
+     */
+    public void setAdaptiveQuality(boolean enabled) {
+        if (renderMode != RenderMode.SURFACE) return;
+        QualityController controller = enabled ? new QualityController(framePeriodNanos()) : null;
+        synchronized (world) {
+            quality = controller;
+            renderer.setEffects(QualityController.EFFECTS_ALL);
+        }
+        ((GameSurfaceView) renderTarget).setRenderScale(1f);
+    }
 
-        tubeSpacing = canvasWidth / 2 + castleWidth;
+    private long framePeriodNanos() {
+        if (renderMode == RenderMode.VIEW) {
+            return GameCanvasView.FRAME_DELAY_MILLIS * NANOS_PER_MILLI;
+        }
+        float hz = getContext().getDisplay().getRefreshRate();
+        return Math.round(1e9 / (hz > 0 ? hz : 60));
     }
 
+    /** Sets up a new run on a fresh course, without ghosts. */
     public void resetGame() {
-        knightX = canvasWidth / 4;
-        knightY = canvasHeight / 2;
-        velocity = 0;
-        score = 0;
-        tubesPassedCount = 0;
-        setsPassed = 0;
-        coinActive = false;
-
-        gap = canvasHeight / 3;
-
-        for (int i = 0; i < 2; i++) {
-            tubeX[i] = canvasWidth + i * tubeSpacing;
-            tubeY[i] = getRandomTubeY();
-            passed[i] = false;
+        handler.removeCallbacks(countdownTick);
+        synchronized (world) {
+            ghostLoad++;
+            for (int i = 0; i < ghostCount; i++) ghosts[i].close();
+            ghostCount = 0;
+            world.reset();
+            gameOverReported = false;
         }
+        scheduler.setState(FrameScheduler.State.IDLE);
+    }
 
-        gameRunning = false;
-        countdownRunning = false;
+    /*
+     * Opens the best saved runs that share the best one's course on the background
+     * executor, then hands them to the world and calls {@code then} on the main
+     * thread. Nothing is installed if the game was reset meanwhile.
+     */
+    private void loadGhosts(Runnable then) {
+        ReplayStore store;
+        int max, load;
+        synchronized (world) {
+            store = replays;
+            max = ghosts.length;
+            load = ghostLoad;
+        }
+        background.execute(() -> {
+            List<ReplayReader> opened = openGhostReplays(store, max);
+            boolean current;
+            synchronized (world) {
+                current = load == ghostLoad;
+                if (current) installGhosts(opened);
+            }
+            if (!current) {
+                for (ReplayReader replay : opened) closeQuietly(replay);
+                return;
+            }
+            post(() -> {
+                boolean stillCurrent;
+                synchronized (world) {
+                    stillCurrent = load == ghostLoad;
+                }
+                if (stillCurrent) then.run();
+            });
+        });
     }
 
-    // ✅ Gap-center randomization
-    private int getRandomTubeY() {
-        int edgePadding = canvasHeight / 12;
-        int minGapCenter = edgePadding + (gap / 2);
-        int maxGapCenter = canvasHeight - edgePadding - (gap / 2);
+    // Disk only, no locks: the best replays that share the best one's seed.
+    private static List<ReplayReader> openGhostReplays(ReplayStore store, int max) {
+        List<ReplayReader> opened = new ArrayList<>();
+        List<File> best = store.best();
+        for (int i = 0; i < best.size() && opened.size() < max; i++) {
+            try {
+                ReplayReader replay = store.open(best.get(i));
+                if (opened.isEmpty() || replay.seed == opened.get(0).seed) {
+                    opened.add(replay);
+                } else {
+                    closeQuietly(replay);
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Skipping replay " + best.get(i), e);
+            }
+        }
+        return opened;
+    }
 
-        int gapCenter = random.nextInt(maxGapCenter - minGapCenter) + minGapCenter;
+    // Called with the world locked: puts the live run on the ghosts' course.
+    private void installGhosts(List<ReplayReader> opened) {
+        for (int i = 0; i < ghostCount; i++) ghosts[i].close();
+        ghostCount = 0;
+        for (ReplayReader replay : opened) {
+            GameWorld ghostWorld = ghostWorlds[ghostCount];
+            ghostWorld.setDifficulty(world.getDifficulty());
+            renderer.applyDimensions(ghostWorld);
+            if (!replay.fits(ghostWorld)) {
+                closeQuietly(replay);
+                continue;
+            }
+            try {
+                Ghost ghost = new Ghost(replay, ghostWorld);
+                ghosts[ghostCount++] = ghost;
+            } catch (IOException e) {
+                Log.w(TAG, "Skipping a replay cut short", e);
+                closeQuietly(replay);
+            }
+        }
+        // They all share one seed.
+        if (ghostCount > 0) world.reset(opened.get(0).seed);
+    }
 
-        return gapCenter - (gap / 2) - castleHeight;
+    private static void closeQuietly(ReplayReader replay) {
+        try {
+            replay.close();
+        } catch (IOException ignored) {
+            // only read from
+        }
     }
 
     private final Runnable countdownTick = new Runnable() {
         @Override
         public void run() {
-            if (countdownValue > 0) {
-                countdownValue--;
-                invalidate();
+            boolean started = false;
+            synchronized (world) {
+                if (countdownValue <= 0) return;
 
+                countdownValue--;
                 if (countdownValue > 0) {
                     handler.postDelayed(this, 1000);
                 } else {
-                    countdownRunning = false;
-                    gameRunning = true;
+                    world.start();
+                    started = true;
                 }
             }
+
+            if (started) {
+                scheduler.setState(FrameScheduler.State.RUNNING);
+            } else {
+                // Only the digit changed; one frame is enough.
+                scheduler.requestFrame();
+            }
         }
     };
 
     public void startCountdown(OnGameOverListener listener) {
+        startCountdown(listener, false);
+    }
+
+    /**
+     * Counts down and starts the run set up by {@link #resetGame()}. With
+     * {@code raceGhosts} the run first moves to the course of the best saved runs,
+     * which then fly along; without saved runs it stays as it is.
+     */
+    public void startCountdown(OnGameOverListener listener, boolean raceGhosts) {
         this.onGameOverCallback = listener;
 
         if (!viewReady) {
-            post(() -> startCountdown(listener));
+            post(() -> startCountdown(listener, raceGhosts));
             return;
         }
 
-        countdownValue = 3;
-        countdownRunning = true;
-        gameRunning = false;
-
-        handler.removeCallbacks(countdownTick);
-        handler.postDelayed(countdownTick, 1000);
-
-        invalidate();
-    }
-
-    @Override
-    protected void onDraw(Canvas canvas) {
-        if (!viewReady || knight == null) {
-            handler.postDelayed(redrawRunnable, delay);
-            return;
+        boolean load;
+        synchronized (world) {
+            gameOverReported = false;
+            load = raceGhosts && replays != null && ghosts.length > 0;
+        }
+        if (load) {
+            loadGhosts(this::beginCountdown);
+        } else {
+            beginCountdown();
         }
+    }
 
-        if (countdownRunning) {
-            drawTubes(canvas, false);
-            canvas.drawBitmap(knight, knightX, knightY, paint);
-            canvas.drawText(
-                    countdownValue == 0 ? "GO!" : String.valueOf(countdownValue),
-                    canvasWidth / 2f,
-                    canvasHeight / 2f,
-                    countdownPaint
-            );
-            handler.postDelayed(redrawRunnable, delay);
-            return;
+    private void beginCountdown() {
+        handler.removeCallbacks(countdownTick);
+        synchronized (world) {
+            countdownValue = 3;
         }
 
-        if (!gameRunning) {
-            canvas.drawBitmap(knight, knightX, knightY, paint);
-            handler.postDelayed(redrawRunnable, delay);
+        if (!scheduler.isActive()) {
+            // Picked up again by onHostActive once the view can be seen.
+            scheduler.setState(FrameScheduler.State.PAUSED);
             return;
         }
 
-        drawTubes(canvas, true);
-        drawCoins(canvas);
+        scheduler.setState(FrameScheduler.State.COUNTDOWN);
+        handler.postDelayed(countdownTick, 1000);
+    }
 
-        velocity += gravity;
-        knightY += velocity;
-        canvas.drawBitmap(knight, knightX, knightY, paint);
+    // ---------- LIFECYCLE ----------
+    /** Call from the host activity's onPause. */
+    public void onPause() {
+        hostResumed = false;
+        updateActive();
+    }
 
-        canvas.drawText("Score: " + score, 50, 150, scorePaint);
+    /** Call from the host activity's onResume. */
+    public void onResume() {
+        hostResumed = true;
+        updateActive();
+    }
 
-        checkCollision();
-        handler.postDelayed(redrawRunnable, delay);
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        updateActive();
     }
 
-    private void drawTubes(Canvas canvas, boolean move) {
-        for (int i = 0; i < 2; i++) {
-            canvas.drawBitmap(topTube, tubeX[i], tubeY[i], paint);
-            canvas.drawBitmap(bottomTube, tubeX[i], tubeY[i] + castleHeight + gap, paint);
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        updateActive();
+    }
 
-            if (move) {
-                tubeX[i] -= castleVelocity;
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateActive();
+    }
 
-                if (tubeX[i] + castleWidth < 0) {
-                    int other = (i == 0) ? 1 : 0;
-                    tubeX[i] = tubeX[other] + tubeSpacing;
-                    tubeY[i] = getRandomTubeY();
-                    passed[i] = false;
-                }
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateActive();
+    }
 
-                if (tubeX[i] + castleWidth < knightX && !passed[i]) {
-                    passed[i] = true;
-                    score++;
-                    tubesPassedCount++;
-                    setsPassed++;
+    private void updateActive() {
+        if (scheduler == null) return; // visibility callbacks can arrive before the constructor finishes
 
-                    if (setsPassed % shrinkEvery == 0) {
-                        gap -= gapShrinkStep;
-                        if (gap < minGap) gap = minGap;
-                    }
+        boolean active = hostResumed && isAttachedToWindow() && isShown()
+                && getWindowVisibility() == VISIBLE;
+        if (active == scheduler.isActive()) return;
 
-                    if (tubesPassedCount % 5 == 0 && !coinActive) {
-                        spawnCoin();
-                    }
-                }
-            }
+        if (active) {
+            scheduler.setActive(true);
+            onHostActive();
+        } else {
+            onHostInactive();
+            scheduler.setActive(false);
         }
     }
 
-    private void checkCollision() {
-        for (int i = 0; i < 2; i++) {
-            if (knightX + knightWidth > tubeX[i] && knightX < tubeX[i] + castleWidth) {
-                if (knightY < tubeY[i] + castleHeight ||
-                        knightY + knightHeight > tubeY[i] + castleHeight + gap) {
-                    triggerGameOver();
-                    return;
-                }
+    private void onHostInactive() {
+        synchronized (world) {
+            // A crash burst still flying must not catch up on the time spent away.
+            world.resetClock();
+        }
+        FrameScheduler.State state = scheduler.getState();
+        if (state == FrameScheduler.State.RUNNING || state == FrameScheduler.State.COUNTDOWN) {
+            handler.removeCallbacks(countdownTick);
+            synchronized (world) {
+                world.pause();
             }
+            scheduler.setState(FrameScheduler.State.PAUSED);
         }
+    }
 
-        if (knightY + knightHeight > canvasHeight || knightY < 0) {
-            triggerGameOver();
+    private void onHostActive() {
+        // A run interrupted mid-flight restarts with a fresh countdown instead of dropping the player in.
+        if (scheduler.getState() == FrameScheduler.State.PAUSED) {
+            beginCountdown();
         }
     }
 
-    private void drawCoins(Canvas canvas) {
-        if (coinActive) {
-            coinX -= castleVelocity;
-            canvas.drawBitmap(coin, coinX, coinY, paint);
+    // ---------- RENDERING ----------
+    boolean wantsNextFrame() {
+        return scheduler.wantsNextFrame();
+    }
 
-            if (knightX < coinX + coinWidth && knightX + knightWidth > coinX &&
-                    knightY < coinY + coinHeight && knightY + knightHeight > coinY) {
-                score += 5;
-                coinActive = false;
+    /**
+     * Steps the world up to {@code frameTimeNanos} and draws it. Called by the render
+     * target, on the main thread for {@link RenderMode#VIEW} and on the render thread
+     * for {@link RenderMode#SURFACE}.
+     */
+    void drawFrame(Canvas canvas, long frameTimeNanos) {
+        if (!viewReady || !renderer.isReady()) return;
+
+        boolean reportGameOver = false;
+        boolean sparksLeft;
+        int score;
+
+        synchronized (world) {
+            FrameStats stats = frameStats;
+            boolean timed = stats != null || quality != null;
+            long startNanos = timed ? System.nanoTime() : 0;
+
+            // The world steps on its own fixed clock; drawing only decides how often we look at it.
+            world.advance(frameTimeNanos);
+            for (int i = 0; i < ghostCount; i++) {
+                ghosts[i].syncTo(world.getTick());
             }
+            long updatedNanos = timed ? System.nanoTime() : 0;
+
+            // A scaled-down surface still gets drawn in view coordinates.
+            float scale = canvas.getWidth() / (float) getWidth();
+            boolean scaled = scale < 0.999f;
+            if (scaled) {
+                canvas.save();
+                canvas.scale(scale, scale);
+            }
+
+            FrameScheduler.State state = scheduler.getState();
+            renderer.draw(canvas, world, ghosts, ghostCount, particles, state, countdownValue);
+            long drawnNanos = timed ? System.nanoTime() : 0;
 
-            if (coinX + coinWidth < 0) {
-                coinActive = false;
+            // Only running frames are paced; countdown and idle frames come on demand.
+            boolean paced = state == FrameScheduler.State.RUNNING;
+            if (stats != null) {
+                if (paced) {
+                    stats.onFrame(frameTimeNanos, updatedNanos - startNanos, drawnNanos - updatedNanos);
+                } else {
+                    stats.breakSequence();
+                }
+                if (frameStatsOverlay != null) frameStatsOverlay.draw(canvas, stats, 0, 0);
+            }
+            if (scaled) canvas.restore();
+
+            if (quality != null) {
+                if (!paced) {
+                    quality.breakSequence();
+                } else if (quality.onFrame(frameTimeNanos, drawnNanos - startNanos)) {
+                    applyQuality(quality);
+                }
+            }
+
+            score = world.getScore();
+            sparksLeft = state == FrameScheduler.State.GAME_OVER && particles.count() > 0;
+            if (world.isGameOver() && !gameOverReported) {
+                gameOverReported = true;
+                reportGameOver = true;
+                saveReplay(Replay.record(world));
+                if (stats != null) {
+                    saveFrameReport(stats);
+                    // Debug builds only, like the frame report.
+                    if (world.getTapCount() > 0) {
+                        Log.i(TAG, "Tap to frame: mean " + world.getMeanInputLatencyNanos() / NANOS_PER_MILLI
+                                + " ms, max " + world.getMaxInputLatencyNanos() / NANOS_PER_MILLI
+                                + " ms over " + world.getTapCount() + " taps");
+                    }
+                }
+            }
+        }
+
+        if (sparksLeft) {
+            // The crash burst outlives the run; keep drawing on demand until it has burnt out.
+            scheduler.requestFrame();
+        }
+        if (reportGameOver) {
+            scheduler.setState(FrameScheduler.State.GAME_OVER);
+            if (onGameOverCallback != null) {
+                onGameOverCallback.onGameOver(score);
             }
         }
     }
 
-    private void spawnCoin() {
-        coinActive = true;
-        int rightmost = Math.max(tubeX[0], tubeX[1]);
-        coinX = rightmost + (tubeSpacing / 2);
+    // Called with the world locked, on the render thread; the surface can only be resized from the main thread.
+    private void applyQuality(QualityController quality) {
+        renderer.setEffects(quality.getEffects());
+        float scale = quality.getRenderScale();
+        GameSurfaceView surface = (GameSurfaceView) renderTarget;
+        post(() -> surface.setRenderScale(scale));
+        if (frameStats != null) {
+            // Debug builds only; release frames stay free of allocation.
+            Log.d(TAG, "Quality level " + quality.getLevel() + ": render scale " + scale
+                    + ", effects " + quality.getEffects());
+        }
+    }
 
-        int maxY = canvasHeight - coinHeight;
-        coinY = random.nextInt(maxY + 1);
+    private void saveReplay(Replay replay) {
+        ReplayStore store = replays;
+        if (store == null) return;
+        background.execute(() -> {
+            try {
+                store.save(replay);
+            } catch (IOException e) {
+                Log.w(TAG, "Could not save replay", e);
+            }
+        });
     }
 
-    private void triggerGameOver() {
-        gameRunning = false;
-        if (onGameOverCallback != null) {
-            onGameOverCallback.onGameOver(score);
+    // Formats the run's report here and starts the next run's stats from zero; writes it off the render thread.
+    private void saveFrameReport(FrameStats stats) {
+        StringBuilder report = new StringBuilder(4096);
+        try {
+            stats.writeReport(report);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // a StringBuilder does not fail
         }
+        Log.i(TAG, "Frames: " + stats.getFrames() + ", jank " + stats.getJankFrames()
+                + ", missed " + stats.getMissedFrames()
+                + ", p99 update " + stats.update().percentile(0.99) / 1000 + " us"
+                + ", p99 draw " + stats.draw().percentile(0.99) / 1000 + " us");
+        stats.clear();
+
+        File dir = frameReportDir;
+        if (dir == null) return;
+        background.execute(() -> {
+            File file = new File(dir, "frames-" + System.currentTimeMillis() + ".csv");
+            try {
+                if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+                try (Writer out = new FileWriter(file)) {
+                    out.append(report);
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Could not write " + file, e);
+                return;
+            }
+            // Same-length millisecond names sort oldest first.
+            File[] reports = dir.listFiles((d, name) -> name.startsWith("frames-"));
+            if (reports == null || reports.length <= FRAME_REPORTS_KEPT) return;
+            Arrays.sort(reports);
+            for (int i = 0; i < reports.length - FRAME_REPORTS_KEPT; i++) reports[i].delete();
+        });
     }
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
-        if (event.getAction() == MotionEvent.ACTION_DOWN && gameRunning) {
-            velocity = -40;
+        if (event.getAction() == MotionEvent.ACTION_DOWN) {
+            // Event time is on the uptime clock, the same monotonic clock as System.nanoTime
+            // and Choreographer's frame times, so the world can place the tap exactly.
+            world.queueFlap(event.getEventTimeNanos());
         }
         return true;
     }
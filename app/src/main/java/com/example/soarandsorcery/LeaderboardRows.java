@@ -0,0 +1,56 @@
+package com.example.soarandsorcery;
+
+import android.view.View;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The rows of a ranked list inside a LinearLayout, bound in place. Each row's
+ * TextView is made once and kept; binding a new list only sets text on rows whose
+ * entry changed, and hides rows past its end instead of removing them, so an
+ * unchanged row is never touched and nothing is inflated again.
+ */
+final class LeaderboardRows {
+
+    private final LinearLayout container;
+    private final List<TextView> rows = new ArrayList<>();
+    // What each visible row shows, by position.
+    private final List<ScoreEntry> shown = new ArrayList<>();
+
+    LeaderboardRows(LinearLayout container) {
+        this.container = container;
+    }
+
+    void bind(List<ScoreEntry> scores) {
+        for (int i = 0; i < scores.size(); i++) {
+            ScoreEntry e = scores.get(i);
+            TextView row = i < rows.size() ? rows.get(i) : addRow();
+            if (i >= shown.size() || !same(shown.get(i), e)) {
+                row.setText((i + 1) + ". " + e.name + " - " + e.score);
+            }
+            if (row.getVisibility() != View.VISIBLE) row.setVisibility(View.VISIBLE);
+        }
+        for (int i = scores.size(); i < rows.size(); i++) {
+            if (rows.get(i).getVisibility() != View.GONE) rows.get(i).setVisibility(View.GONE);
+        }
+        shown.clear();
+        shown.addAll(scores);
+    }
+
+    private TextView addRow() {
+        TextView t = new TextView(container.getContext());
+        t.setTextSize(22);
+        t.setTextColor(0xFFFFFFFF);
+        t.setTextAlignment(View.TEXT_ALIGNMENT_CENTER);
+        container.addView(t);
+        rows.add(t);
+        return t;
+    }
+
+    private static boolean same(ScoreEntry a, ScoreEntry b) {
+        return a.score == b.score && a.name.equals(b.name);
+    }
+}
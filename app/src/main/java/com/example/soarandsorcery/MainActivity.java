@@ -2,12 +2,17 @@ package com.example.soarandsorcery;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
+import android.net.ConnectivityManager;
+import android.net.Network;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 import android.view.View;
 import android.widget.Button;
 import android.widget.FrameLayout;
 import android.widget.ImageButton;
-import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -16,17 +21,13 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class MainActivity extends AppCompatActivity {
 
@@ -36,16 +37,35 @@ public class MainActivity extends AppCompatActivity {
     // UI screens
     private View startScreen, nicknameScreen, highscoresScreen, worldScoresScreen;
 
-    private LinearLayout highscoresContainer, worldScoresContainer;
+    private LeaderboardRows highscoreRows, worldScoreRows;
     private TextView scoreTitle, letter1, letter2, letter3;
 
     private int lastScore = 0;
 
     private static final String PREFS_NAME = "knight_skies_prefs";
     private static final String KEY_HIGHSCORES = "highscores";
+    private static final int REPLAYS_KEPT = 10;
+    private static final int GHOSTS = 3;
+    private static final int HIGHSCORES_SHOWN = 10;
+    private static final String TAG = "MainActivity";
+    private static final long WORLD_SCORES_TTL_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    // Writes scores behind the UI, one file operation at a time.
+    private static final ExecutorService scoreWriter = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ScoreWriter");
+        t.setPriority(Thread.NORM_PRIORITY - 1);
+        return t;
+    });
 
     // ✅ Firestore
     private FirebaseFirestore db;
+    private LeaderboardCache worldScores;
+    private UploadQueue worldUploads;
+    private ConnectivityManager.NetworkCallback networkCallback;
+    // Live while the world scores are on screen.
+    private WorldLeaderboard.Registration worldListener;
+
+    private HighscoreStore localHighscores;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -53,9 +73,41 @@ public class MainActivity extends AppCompatActivity {
         setContentView(R.layout.activity_main);
 
         db = FirebaseFirestore.getInstance();
+        WorldLeaderboard worldBoard = new FirestoreLeaderboard(db);
+        worldScores = new LeaderboardCache(worldBoard, HIGHSCORES_SHOWN, WORLD_SCORES_TTL_NANOS);
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        worldUploads = new UploadQueue(new File(getFilesDir(), "world-uploads.bin"), worldBoard, worldScores,
+                scoreWriter, mainHandler::postDelayed);
+        worldUploads.setOnSentListener(sent -> runOnUiThread(() ->
+                Toast.makeText(this, "World highscore updated!", Toast.LENGTH_SHORT).show()));
+        worldUploads.load();
+
+        // Runs that could not go out wait for the network to come back.
+        networkCallback = new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(@NonNull Network network) {
+                worldUploads.onConnected();
+            }
+        };
+        getSystemService(ConnectivityManager.class).registerDefaultNetworkCallback(networkCallback);
+
+        // Read on the writer like every write after it, so the UI thread never waits on the disk.
+        localHighscores = new HighscoreStore(new File(getFilesDir(), "scores"), HIGHSCORES_SHOWN, scoreWriter);
+        scoreWriter.execute(() -> {
+            try {
+                localHighscores.load();
+            } catch (IOException e) {
+                Log.w(TAG, "Could not read local highscores", e);
+            }
+            importOldHighscores();
+        });
 
         gameContainer = findViewById(R.id.gameContainer);
         gameView = new GameView(this);
+        gameView.setReplays(new ReplayStore(new File(getFilesDir(), "replays"), REPLAYS_KEPT), GHOSTS);
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            gameView.enableFrameStats(new File(getFilesDir(), "frame-stats"), true);
+        }
         gameContainer.addView(gameView);
         gameContainer.setVisibility(View.GONE);
 
@@ -65,8 +117,8 @@ public class MainActivity extends AppCompatActivity {
         highscoresScreen = findViewById(R.id.highscoresInclude);
         worldScoresScreen = findViewById(R.id.worldScoresInclude);
 
-        highscoresContainer = findViewById(R.id.highscoresContainer);
-        worldScoresContainer = findViewById(R.id.worldScoresContainer);
+        highscoreRows = new LeaderboardRows(findViewById(R.id.highscoresContainer));
+        worldScoreRows = new LeaderboardRows(findViewById(R.id.worldScoresContainer));
 
         scoreTitle = findViewById(R.id.scoreTitle);
         letter1 = findViewById(R.id.letter1);
@@ -74,6 +126,7 @@ public class MainActivity extends AppCompatActivity {
         letter3 = findViewById(R.id.letter3);
 
         Button playButton = findViewById(R.id.playButton);
+        Button raceButton = findViewById(R.id.raceButton);
         ImageButton leftButton = findViewById(R.id.leftButton);
         ImageButton rightButton = findViewById(R.id.rightButton);
 
@@ -99,7 +152,8 @@ public class MainActivity extends AppCompatActivity {
         Button highscoresReturnButton = findViewById(R.id.returnButton);
 
         // Start game
-        playButton.setOnClickListener(v -> startGame());
+        playButton.setOnClickListener(v -> startGame(false));
+        raceButton.setOnClickListener(v -> startGame(true));
 
         // World / Local
         leftButton.setOnClickListener(v -> showWorldScoresScreen());
@@ -109,7 +163,8 @@ public class MainActivity extends AppCompatActivity {
         confirmButton.setOnClickListener(v -> {
             String name = "" + letter1.getText() + letter2.getText() + letter3.getText();
 
-            addScoreIfTop10(name, lastScore);        // Local
+            int score = lastScore;
+            scoreWriter.execute(() -> localHighscores.add(name, score)); // Local, after the load
             checkAndUploadWorldScore(name, lastScore); // Firestore
 
             nicknameScreen.setVisibility(View.GONE);
@@ -118,6 +173,7 @@ public class MainActivity extends AppCompatActivity {
         });
 
         worldReturnButton.setOnClickListener(v -> {
+            stopWorldListener();
             worldScoresScreen.setVisibility(View.GONE);
             startScreen.setVisibility(View.VISIBLE);
         });
@@ -128,11 +184,31 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
-    private void startGame() {
+    @Override
+    protected void onResume() {
+        super.onResume();
+        gameView.onResume();
+    }
+
+    @Override
+    protected void onPause() {
+        gameView.onPause();
+        super.onPause();
+    }
+
+    @Override
+    protected void onDestroy() {
+        stopWorldListener();
+        getSystemService(ConnectivityManager.class).unregisterNetworkCallback(networkCallback);
+        super.onDestroy();
+    }
+
+    // Racing puts the run on the course of the best saved runs, which fly along as ghosts.
+    private void startGame(boolean raceGhosts) {
         startScreen.setVisibility(View.GONE);
         gameContainer.setVisibility(View.VISIBLE);
 
-        gameView.startCountdown(score -> runOnUiThread(() -> onGameOver(score)));
+        gameView.startCountdown(score -> runOnUiThread(() -> onGameOver(score)), raceGhosts);
     }
 
     private void onGameOver(int score) {
@@ -149,7 +225,13 @@ public class MainActivity extends AppCompatActivity {
 
     private void showNicknameScreen(int score) {
         gameContainer.setVisibility(View.GONE);
-        scoreTitle.setText("Your score: " + score);
+        if (localHighscores.isIndexed() && localHighscores.runCount() > 0) {
+            // The run is only added once it has a name, so this compares it with the earlier ones.
+            long better = Math.round(localHighscores.percentile(score));
+            scoreTitle.setText("Your score: " + score + "\nBetter than " + better + "% of your runs");
+        } else {
+            scoreTitle.setText("Your score: " + score);
+        }
 
         letter1.setText("A");
         letter2.setText("A");
@@ -171,130 +253,75 @@ public class MainActivity extends AppCompatActivity {
 
     // ---------- LOCAL HIGHSCORES ----------
     private void showHighscoresScreen() {
-        highscoresContainer.removeAllViews();
-        List<ScoreEntry> scores = loadHighscores();
-
-        for (int i = 0; i < scores.size(); i++) {
-            TextView t = new TextView(this);
-            t.setText((i + 1) + ". " + scores.get(i).name + " - " + scores.get(i).score);
-            t.setTextSize(22);
-            t.setTextColor(0xFFFFFFFF);
-            t.setTextAlignment(View.TEXT_ALIGNMENT_CENTER);
-            highscoresContainer.addView(t);
-        }
-
+        highscoreRows.bind(localHighscores.top());
         highscoresScreen.setVisibility(View.VISIBLE);
     }
 
-    // ---------- WORLD FIREBASE SCORES ----------
-    private void showWorldScoresScreen() {
-        worldScoresContainer.removeAllViews();
-
-        db.collection("world_highscores")
-                .orderBy("score", com.google.firebase.firestore.Query.Direction.DESCENDING)
-                .limit(10)
-                .get()
-                .addOnSuccessListener(query -> {
-                    int rank = 1;
-                    for (QueryDocumentSnapshot doc : query) {
-                        String name = doc.getString("name");
-                        Long score = doc.getLong("score");
-
-                        TextView t = new TextView(this);
-                        t.setText(rank + ". " + name + " - " + score);
-                        t.setTextSize(22);
-                        t.setTextColor(0xFFFFFFFF);
-                        t.setTextAlignment(View.TEXT_ALIGNMENT_CENTER);
-                        worldScoresContainer.addView(t);
-                        rank++;
-                    }
-                });
-
-        worldScoresScreen.setVisibility(View.VISIBLE);
-    }
-
-    // ---------- FIREBASE TOP-10 CHECK ----------
-    private void checkAndUploadWorldScore(String name, int score) {
-        db.collection("world_highscores")
-                .orderBy("score", com.google.firebase.firestore.Query.Direction.DESCENDING)
-                .limit(10)
-                .get()
-                .addOnSuccessListener(query -> {
-                    int lowest = 0;
-
-                    List<com.google.firebase.firestore.DocumentSnapshot> docs = query.getDocuments();
-
-                    if (docs.size() == 10) {
-                        lowest = docs.get(9).getLong("score").intValue();
-                    }
-
-                    if (docs.size() < 10 || score > lowest) {
-                        Map<String, Object> entry = new HashMap<>();
-                        entry.put("name", name);
-                        entry.put("score", score);
-
-                        db.collection("world_highscores").add(entry);
-                        Toast.makeText(this, "World highscore updated!", Toast.LENGTH_SHORT).show();
-                    }
-                });
-    }
-
-    // ---------- LOCAL STORAGE ----------
-    private List<ScoreEntry> loadHighscores() {
+    // Scores from before the binary store lived as JSON in SharedPreferences; move them over once.
+    // Runs on the score writer after the load; the old key goes only once the scores are on disk.
+    private void importOldHighscores() {
         SharedPreferences prefs = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        String json = prefs.getString(KEY_HIGHSCORES, null);
-        List<ScoreEntry> list = new ArrayList<>();
+        if (!prefs.contains(KEY_HIGHSCORES)) return;
 
-        if (json == null) return list;
+        LocalHighscores old = new LocalHighscores(new LocalHighscores.Storage() {
+            @Override
+            public String read() {
+                return prefs.getString(KEY_HIGHSCORES, null);
+            }
 
-        try {
-            JSONArray arr = new JSONArray(json);
-            for (int i = 0; i < arr.length(); i++) {
-                JSONObject o = arr.getJSONObject(i);
-                list.add(new ScoreEntry(o.getString("name"), o.getInt("score")));
+            @Override
+            public void write(String value) {
+                // read only
+            }
+        });
+        if (localHighscores.isEmpty()) {
+            // Their run times were never kept; 0 keeps them ahead of newer ties.
+            for (ScoreEntry e : old.load()) localHighscores.add(e.name, e.score, 0);
+            try {
+                localHighscores.flush();
+            } catch (IOException e) {
+                Log.w(TAG, "Could not save imported highscores; trying again next start", e);
+                return;
             }
-        } catch (JSONException e) {
-            e.printStackTrace();
         }
-
-        return list;
+        prefs.edit().remove(KEY_HIGHSCORES).commit();
     }
 
-    private void saveHighscores(List<ScoreEntry> list) {
-        JSONArray arr = new JSONArray();
-
-        try {
-            for (ScoreEntry e : list) {
-                JSONObject o = new JSONObject();
-                o.put("name", e.name);
-                o.put("score", e.score);
-                arr.put(o);
-            }
-        } catch (JSONException e) {
-            e.printStackTrace();
+    // ---------- WORLD FIREBASE SCORES ----------
+    private void showWorldScoresScreen() {
+        // The last snapshot goes up at once; the listener then rebinds only rows that change.
+        List<ScoreEntry> last = worldScores.cached();
+        if (last != null) worldScoreRows.bind(last);
+
+        if (worldListener == null) {
+            worldListener = worldScores.listen(new WorldLeaderboard.Callback<List<ScoreEntry>>() {
+                @Override
+                public void onResult(List<ScoreEntry> scores) {
+                    worldScoreRows.bind(scores);
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    Log.w(TAG, "World highscores listener failed", e);
+                    stopWorldListener(); // the next visit starts a new one
+                }
+            });
         }
 
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        prefs.edit().putString(KEY_HIGHSCORES, arr.toString()).apply();
+        worldScoresScreen.setVisibility(View.VISIBLE);
     }
 
-    private void addScoreIfTop10(String name, int score) {
-        List<ScoreEntry> list = loadHighscores();
-        list.add(new ScoreEntry(name, score));
-        Collections.sort(list, (a, b) -> Integer.compare(b.score, a.score));
-
-        if (list.size() > 10) list = list.subList(0, 10);
-
-        saveHighscores(list);
+    private void stopWorldListener() {
+        if (worldListener != null) {
+            worldListener.remove();
+            worldListener = null;
+        }
     }
 
-    private static class ScoreEntry {
-        final String name;
-        final int score;
-
-        ScoreEntry(String name, int score) {
-            this.name = name;
-            this.score = score;
-        }
+    // ---------- FIREBASE TOP-10 CHECK ----------
+    // Answered from the cached top 10; a run that may make it is queued and sent when it can be.
+    // The toast comes from the queue once the board has taken it.
+    private void checkAndUploadWorldScore(String name, int score) {
+        worldUploads.offer(new ScoreEntry(name, score, System.currentTimeMillis()));
     }
 }
@@ -0,0 +1,40 @@
+package com.example.soarandsorcery;
+
+/**
+ * Arithmetic behind the scenery: where a wrap-around tile starts for a given scroll,
+ * and the ridge lines painted into the tiles. Ridges are sums of sines with whole
+ * periods across the tile, so a tile's right edge meets its own left edge.
+ */
+final class Parallax {
+
+    // Cycles across one tile and relative weight of each sine in a ridge.
+    private static final int[] CYCLES = { 1, 3, 7 };
+    private static final float[] WEIGHTS = { 0.5f, 0.3f, 0.2f };
+
+    private Parallax() {
+    }
+
+    /**
+     * Left edge inside the tile, 0..tileWidth-1, for a layer moving at {@code factor}
+     * of the course's speed. Drawing the tile at {@code -offset} and, unless the
+     * offset is 0, again at {@code tileWidth - offset} covers the screen.
+     */
+    static int tileOffset(float scroll, float factor, int tileWidth) {
+        long px = (long) Math.floor((double) scroll * factor);
+        return (int) Math.floorMod(px, (long) tileWidth);
+    }
+
+    /**
+     * Ridge height at column {@code x} of a tile {@code width} wide, 0..amplitude, with
+     * the shape picked by {@code seed}. {@code ridge(0) == ridge(width)}.
+     */
+    static float ridge(int x, int width, float amplitude, int seed) {
+        double sum = 0;
+        for (int i = 0; i < CYCLES.length; i++) {
+            double phase = (seed * 0.61803398875 * (i + 1)) % 1.0;
+            sum += WEIGHTS[i] * Math.sin(2 * Math.PI * (CYCLES[i] * x / (double) width + phase));
+        }
+        // The weights sum to 1, so sum is within -1..1.
+        return (float) ((sum + 1) / 2 * amplitude);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.soarandsorcery;
+
+/**
+ * Decimal digits of the current score in a reused buffer. The buffer is only
+ * rewritten when the value changes, and never reallocated.
+ */
+final class ScoreDigits {
+
+    private final char[] digits = new char[10]; // Integer.MAX_VALUE has 10 digits
+    private int length = 0;
+    private int value = -1;
+
+    /** Returns true if the digits changed. Negative values show as 0. */
+    boolean set(int value) {
+        if (value < 0) value = 0;
+        if (value == this.value) return false;
+        this.value = value;
+
+        int n = 1;
+        for (int v = value / 10; v > 0; v /= 10) n++;
+
+        int v = value;
+        for (int i = n - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + v % 10);
+            v /= 10;
+        }
+        length = n;
+        return true;
+    }
+
+    int value() {
+        return value;
+    }
+
+    int length() {
+        return length;
+    }
+
+    /** Digit at position {@code i} from the left, 0..9. */
+    int digitAt(int i) {
+        return digits[i] - '0';
+    }
+
+    char[] chars() {
+        return digits;
+    }
+}
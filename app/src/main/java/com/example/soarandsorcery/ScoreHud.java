@@ -0,0 +1,82 @@
+package com.example.soarandsorcery;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+
+/**
+ * Score and countdown text drawn from glyph bitmaps rendered once up front, so a
+ * running frame does no string building and no text layout.
+ */
+class ScoreHud {
+
+    private static final String SCORE_LABEL = "Score: ";
+    private static final String GO = "GO!";
+
+    private final Paint paint = new Paint();
+
+    private final Bitmap scoreLabel;
+    private final Bitmap[] digitGlyphs = new Bitmap[10];
+    private final float scoreAscent;
+
+    // Index 0 is "GO!", 1..3 the countdown digits.
+    private final Bitmap[] countdownGlyphs = new Bitmap[4];
+
+    private final ScoreDigits digits = new ScoreDigits();
+
+    ScoreHud() {
+        Paint scorePaint = new Paint();
+        scorePaint.setColor(Color.WHITE);
+        scorePaint.setTextSize(80);
+        scorePaint.setFakeBoldText(true);
+
+        Paint countdownPaint = new Paint();
+        countdownPaint.setColor(Color.WHITE);
+        countdownPaint.setTextSize(200);
+
+        scoreAscent = scorePaint.ascent();
+        scoreLabel = renderGlyph(SCORE_LABEL, scorePaint);
+        for (int d = 0; d < 10; d++) {
+            digitGlyphs[d] = renderGlyph(String.valueOf(d), scorePaint);
+        }
+
+        countdownGlyphs[0] = renderGlyph(GO, countdownPaint);
+        for (int d = 1; d < countdownGlyphs.length; d++) {
+            countdownGlyphs[d] = renderGlyph(String.valueOf(d), countdownPaint);
+        }
+    }
+
+    private static Bitmap renderGlyph(String text, Paint textPaint) {
+        Paint.FontMetrics fm = textPaint.getFontMetrics();
+        int w = Math.max(1, (int) Math.ceil(textPaint.measureText(text)));
+        int h = Math.max(1, (int) Math.ceil(fm.descent - fm.ascent));
+
+        Bitmap glyph = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+        new Canvas(glyph).drawText(text, 0, -fm.ascent, textPaint);
+        return glyph;
+    }
+
+    /** Draws "Score: N" with its baseline at {@code baselineY}, like Canvas.drawText. */
+    void drawScore(Canvas canvas, int score, float x, float baselineY) {
+        digits.set(score);
+
+        float top = baselineY + scoreAscent;
+        canvas.drawBitmap(scoreLabel, x, top, paint);
+        x += scoreLabel.getWidth();
+
+        for (int i = 0; i < digits.length(); i++) {
+            Bitmap glyph = digitGlyphs[digits.digitAt(i)];
+            canvas.drawBitmap(glyph, x, top, paint);
+            x += glyph.getWidth();
+        }
+    }
+
+    /** Draws the countdown value (0 shows "GO!") centred on the given point. */
+    void drawCountdown(Canvas canvas, int value, float centerX, float centerY) {
+        if (value < 0 || value >= countdownGlyphs.length) return;
+
+        Bitmap glyph = countdownGlyphs[value];
+        canvas.drawBitmap(glyph, centerX - glyph.getWidth() / 2f, centerY - glyph.getHeight() / 2f, paint);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.soarandsorcery;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+/**
+ * Every game sprite packed into one bitmap and drawn through source rects.
+ *
+ * Castles are not stored at full height: each is a cap (the battlements facing the
+ * gap) plus a tile of whole brick periods, and is drawn as the cap followed by as
+ * many tiles as reach the screen edge. Every blit is clipped to the canvas first,
+ * so nothing off screen is sent to the GPU.
+ */
+class SpriteAtlas {
+
+    static final int KNIGHT = 0;
+    static final int COIN = 1;
+    static final int BIRD = 2;
+    static final int TOP_CAP = 3;
+    static final int TOP_TILE = 4;
+    static final int BOTTOM_CAP = 5;
+    static final int BOTTOM_TILE = 6;
+    static final int REGION_COUNT = 7;
+
+    private static final int PADDING = 1;
+
+    private final Bitmap atlas;
+    private final int[] regionX = new int[REGION_COUNT];
+    private final int[] regionY = new int[REGION_COUNT];
+    private final int[] regionW = new int[REGION_COUNT];
+    private final int[] regionH = new int[REGION_COUNT];
+
+    // Render thread only.
+    private final Rect src = new Rect();
+    private final Rect dst = new Rect();
+    private int clipWidth, clipHeight;
+
+    /**
+     * Packs {@code sprites} (indexed by the region constants, software bitmaps) into
+     * a single atlas; with {@code hardware} the result is moved to GPU memory.
+     */
+    SpriteAtlas(Bitmap[] sprites, boolean hardware) {
+        for (int i = 0; i < REGION_COUNT; i++) {
+            regionW[i] = sprites[i].getWidth();
+            regionH[i] = sprites[i].getHeight();
+        }
+
+        int width = AtlasPacker.chooseWidth(regionW, regionH, PADDING);
+        int height = AtlasPacker.pack(regionW, regionH, width, PADDING, regionX, regionY);
+
+        Bitmap packed = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(packed);
+        for (int i = 0; i < REGION_COUNT; i++) {
+            canvas.drawBitmap(sprites[i], regionX[i], regionY[i], null);
+        }
+
+        if (hardware) {
+            Bitmap gpu = packed.copy(Bitmap.Config.HARDWARE, false);
+            if (gpu != null) {
+                packed.recycle();
+                packed = gpu;
+            }
+        }
+        atlas = packed;
+    }
+
+    int width(int region) {
+        return regionW[region];
+    }
+
+    int height(int region) {
+        return regionH[region];
+    }
+
+    /** Size of the area blits are clipped to, normally the canvas. */
+    void setClip(int width, int height) {
+        clipWidth = width;
+        clipHeight = height;
+    }
+
+    /** Draws a region with its top-left corner at (x, y), minus whatever is off canvas. */
+    void draw(Canvas canvas, int region, int x, int y, Paint paint) {
+        int left = Math.max(x, 0);
+        int top = Math.max(y, 0);
+        int right = Math.min(x + regionW[region], clipWidth);
+        int bottom = Math.min(y + regionH[region], clipHeight);
+        if (left >= right || top >= bottom) return;
+
+        int sx = regionX[region] - x;
+        int sy = regionY[region] - y;
+        src.set(sx + left, sy + top, sx + right, sy + bottom);
+        dst.set(left, top, right, bottom);
+        canvas.drawBitmap(atlas, src, dst, paint);
+    }
+
+    /** Top castle ending at {@code bottom}: cap at the bottom, tiles stacked up past y = 0. */
+    void drawTopCastle(Canvas canvas, int x, int bottom, Paint paint) {
+        if (x >= clipWidth || x + regionW[TOP_CAP] <= 0 || bottom <= 0) return;
+
+        int y = bottom - regionH[TOP_CAP];
+        draw(canvas, TOP_CAP, x, y, paint);
+
+        int tileH = regionH[TOP_TILE];
+        for (y -= tileH; y + tileH > 0; y -= tileH) {
+            draw(canvas, TOP_TILE, x, y, paint);
+        }
+    }
+
+    /** Bottom castle starting at {@code top}: cap at the top, tiles stacked down past the canvas. */
+    void drawBottomCastle(Canvas canvas, int x, int top, Paint paint) {
+        if (x >= clipWidth || x + regionW[BOTTOM_CAP] <= 0 || top >= clipHeight) return;
+
+        draw(canvas, BOTTOM_CAP, x, top, paint);
+
+        int tileH = regionH[BOTTOM_TILE];
+        for (int y = top + regionH[BOTTOM_CAP]; y < clipHeight; y += tileH) {
+            draw(canvas, BOTTOM_TILE, x, y, paint);
+        }
+    }
+}
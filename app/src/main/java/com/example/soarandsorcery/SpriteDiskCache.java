@@ -0,0 +1,197 @@
+package com.example.soarandsorcery;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Scaled sprite sets saved in the app cache, one file per screen configuration
+ * (canvas width, height and density), so later launches skip decoding and scaling.
+ *
+ * File layout, big-endian: magic, format version, fingerprint, sprite count, then
+ * per sprite: resource id, source rows, width, height, config, byte count and the
+ * raw pixels. The fingerprint covers the app version and the bytes of every
+ * drawable in the set; a mismatch throws the whole directory away.
+ */
+final class SpriteDiskCache {
+
+    private static final String TAG = "SpriteDiskCache";
+    private static final int MAGIC = 0x53505254; // "SPRT"
+    private static final int FORMAT_VERSION = 2;
+
+    private final File dir;
+    private final Resources resources;
+    private final long versionCode;
+
+    SpriteDiskCache(Context context) {
+        this.dir = new File(context.getCacheDir(), "sprites");
+        this.resources = context.getResources();
+
+        long version = 0;
+        try {
+            version = context.getPackageManager()
+                    .getPackageInfo(context.getPackageName(), 0)
+                    .getLongVersionCode();
+        } catch (PackageManager.NameNotFoundException e) {
+            Log.w(TAG, "Package info unavailable", e);
+        }
+        this.versionCode = version;
+    }
+
+    static String configKey(int canvasWidth, int canvasHeight, int densityDpi) {
+        return canvasWidth + "x" + canvasHeight + "@" + densityDpi;
+    }
+
+    /** Fingerprint of the app version and the raw drawable bytes. */
+    long fingerprint(int[] resIds) {
+        CRC32 crc = new CRC32();
+        crc.update(longBytes(versionCode));
+
+        byte[] buffer = new byte[16 * 1024];
+        for (int resId : resIds) {
+            try (InputStream in = resources.openRawResource(resId)) {
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    crc.update(buffer, 0, n);
+                }
+            } catch (IOException | Resources.NotFoundException e) {
+                Log.w(TAG, "Cannot fingerprint resource " + resId, e);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Maps the cached set for {@code configKey} and copies it into new software
+     * bitmaps, in request order. Returns null when there is no valid entry.
+     */
+    Bitmap[] read(String configKey, long fingerprint, SpriteLoader.Request[] requests) {
+        File file = fileFor(configKey);
+        if (!file.isFile()) return null;
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (map.getInt() != MAGIC || map.getInt() != FORMAT_VERSION) return invalid(file);
+            if (map.getLong() != fingerprint) {
+                clear();
+                return null;
+            }
+            if (map.getInt() != requests.length) return invalid(file);
+
+            Bitmap[] bitmaps = new Bitmap[requests.length];
+            for (int i = 0; i < requests.length; i++) {
+                int resId = map.getInt();
+                int srcTop = map.getInt();
+                int srcBottom = map.getInt();
+                int width = map.getInt();
+                int height = map.getInt();
+                int configOrdinal = map.getInt();
+                int byteCount = map.getInt();
+
+                SpriteLoader.Request r = requests[i];
+                if (resId != r.resId || srcTop != r.srcTop || srcBottom != r.srcBottom
+                        || width != r.width || height != r.height
+                        || configOrdinal < 0 || configOrdinal >= Bitmap.Config.values().length) {
+                    return invalid(file);
+                }
+
+                Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.values()[configOrdinal]);
+                if (bitmap.getByteCount() != byteCount || map.remaining() < byteCount) {
+                    bitmap.recycle();
+                    return invalid(file);
+                }
+
+                ByteBuffer pixels = map.duplicate();
+                pixels.limit(pixels.position() + byteCount);
+                bitmap.copyPixelsFromBuffer(pixels);
+                map.position(map.position() + byteCount);
+                bitmaps[i] = bitmap;
+            }
+            return bitmaps;
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Discarding unreadable sprite cache " + file, e);
+            return invalid(file);
+        }
+    }
+
+    /** Saves software bitmaps for {@code configKey}; written to a temp file and renamed. */
+    void write(String configKey, long fingerprint, SpriteLoader.Request[] requests, Bitmap[] bitmaps) {
+        if (!dir.isDirectory() && !dir.mkdirs()) return;
+
+        File file = fileFor(configKey);
+        File tmp = new File(dir, file.getName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(fingerprint);
+            out.writeInt(requests.length);
+
+            for (int i = 0; i < requests.length; i++) {
+                Bitmap bitmap = bitmaps[i];
+                ByteBuffer pixels = ByteBuffer.allocate(bitmap.getByteCount());
+                bitmap.copyPixelsToBuffer(pixels);
+
+                out.writeInt(requests[i].resId);
+                out.writeInt(requests[i].srcTop);
+                out.writeInt(requests[i].srcBottom);
+                out.writeInt(bitmap.getWidth());
+                out.writeInt(bitmap.getHeight());
+                out.writeInt(bitmap.getConfig().ordinal());
+                out.writeInt(pixels.capacity());
+                out.write(pixels.array(), 0, pixels.capacity());
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Could not write sprite cache " + file, e);
+            tmp.delete();
+            return;
+        }
+
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+        }
+    }
+
+    void clear() {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        for (File f : files) {
+            f.delete();
+        }
+    }
+
+    private File fileFor(String configKey) {
+        return new File(dir, configKey + ".sprites");
+    }
+
+    private static Bitmap[] invalid(File file) {
+        file.delete();
+        return null;
+    }
+
+    private static byte[] longBytes(long v) {
+        byte[] b = new byte[8];
+        for (int i = 7; i >= 0; i--) {
+            b[i] = (byte) v;
+            v >>>= 8;
+        }
+        return b;
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.soarandsorcery;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Decodes drawables straight to the size they are drawn at, off the main thread,
+ * and keeps the results in a process-wide cache keyed by resource and size.
+ *
+ * Decoding samples down with {@code inSampleSize} and lets the decoder scale the
+ * rest of the way through {@code inDensity}/{@code inTargetDensity}, so a full
+ * resolution copy never exists. A new GameView after a configuration change finds
+ * its sprites already in the cache; a new process finds them in {@link SpriteDiskCache}.
+ */
+final class SpriteLoader {
+
+    private static final String TAG = "SpriteLoader";
+
+    private static final ExecutorService decoder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "SpriteDecode");
+        t.setPriority(Thread.NORM_PRIORITY - 1);
+        return t;
+    });
+
+    private static final LruCache<String, Bitmap> cache =
+            new LruCache<String, Bitmap>((int) (Runtime.getRuntime().maxMemory() / 1024 / 16)) {
+                @Override
+                protected int sizeOf(String key, Bitmap value) {
+                    return Math.max(1, value.getAllocationByteCount() / 1024);
+                }
+            };
+
+    private SpriteLoader() {
+    }
+
+    static void runAsync(Runnable task) {
+        decoder.execute(task);
+    }
+
+    /** Width and height of the drawable as stored, without decoding pixels. */
+    static int[] sourceSize(Resources res, int resId) {
+        BitmapFactory.Options opts = new BitmapFactory.Options();
+        opts.inJustDecodeBounds = true;
+        opts.inScaled = false;
+        BitmapFactory.decodeResource(res, resId, opts);
+        return new int[] { opts.outWidth, opts.outHeight };
+    }
+
+    /**
+     * One sprite: a drawable, optionally only the rows {@code srcTop..srcBottom} of it,
+     * and the exact size it is drawn at.
+     */
+    static final class Request {
+        final int resId;
+        final int srcTop;
+        final int srcBottom;   // 0 = whole drawable
+        final int width;
+        final int height;
+
+        Request(int resId, int width, int height) {
+            this(resId, 0, 0, width, height);
+        }
+
+        Request(int resId, int srcTop, int srcBottom, int width, int height) {
+            this.resId = resId;
+            this.srcTop = srcTop;
+            this.srcBottom = srcBottom;
+            this.width = width;
+            this.height = height;
+        }
+
+        boolean isSlice() {
+            return srcBottom > 0;
+        }
+
+        String cacheKey(boolean hardware) {
+            return resId + "[" + srcTop + "," + srcBottom + "]:" + width + "x" + height
+                    + (hardware ? ":hw" : ":sw");
+        }
+    }
+
+    /**
+     * Loads a whole sprite set for one screen configuration: from memory if every
+     * sprite is there, else from the disk cache, else by decoding (and then saving
+     * the set for next time). Entries that fail to load are null. With {@code hardware}
+     * the pixels end up in GPU memory (only drawable, not readable); otherwise opaque
+     * sprites use RGB_565. Blocks, so call it from {@link #runAsync}.
+     */
+    static Bitmap[] loadAll(Resources res, SpriteDiskCache disk, String configKey,
+                            Request[] requests, boolean hardware) {
+        Bitmap[] result = new Bitmap[requests.length];
+        boolean complete = true;
+        for (int i = 0; i < requests.length; i++) {
+            result[i] = cache.get(requests[i].cacheKey(hardware));
+            complete &= result[i] != null;
+        }
+        if (complete) return result;
+
+        int[] resIds = new int[requests.length];
+        for (int i = 0; i < requests.length; i++) {
+            resIds[i] = requests[i].resId;
+        }
+        long fingerprint = disk.fingerprint(resIds);
+
+        // The disk holds software pixels; hardware copies are made after reading or writing.
+        Bitmap[] software = disk.read(configKey, fingerprint, requests);
+        if (software == null) {
+            software = new Bitmap[requests.length];
+            boolean decodedAll = true;
+            for (int i = 0; i < requests.length; i++) {
+                software[i] = decode(res, requests[i]);
+                decodedAll &= software[i] != null;
+            }
+            if (decodedAll) {
+                disk.write(configKey, fingerprint, requests, software);
+            }
+        }
+
+        for (int i = 0; i < requests.length; i++) {
+            if (software[i] == null) continue;
+            result[i] = finish(software[i], hardware);
+            cache.put(requests[i].cacheKey(hardware), result[i]);
+        }
+        return result;
+    }
+
+    // Software ARGB_8888 at exactly the requested size.
+    private static Bitmap decode(Resources res, Request request) {
+        int resId = request.resId;
+        int width = request.width;
+        int height = request.height;
+
+        int[] src = sourceSize(res, resId);
+        if (src[0] <= 0 || src[1] <= 0 || width <= 0 || height <= 0) {
+            Log.e(TAG, "Cannot decode resource " + resId + " to " + width + "x" + height);
+            return null;
+        }
+
+        Bitmap bitmap;
+        try {
+            bitmap = request.isSlice()
+                    ? decodeSlice(res, request, src[0])
+                    : decodeWhole(res, request, src[0], src[1]);
+        } catch (Exception e) {
+            Log.e(TAG, "Error decoding resource " + resId, e);
+            return null;
+        }
+        if (bitmap == null) return null;
+
+        // Density scaling is uniform; stretched sprites (and rounding) need one more pass.
+        if (bitmap.getWidth() != width || bitmap.getHeight() != height) {
+            bitmap = replace(bitmap, Bitmap.createScaledBitmap(bitmap, width, height, false));
+        }
+        return bitmap;
+    }
+
+    private static Bitmap decodeWhole(Resources res, Request request, int srcWidth, int srcHeight) {
+        BitmapFactory.Options opts = new BitmapFactory.Options();
+        opts.inSampleSize = sampleSize(srcWidth, srcHeight, request.width, request.height);
+        opts.inScaled = true;
+        opts.inDensity = srcWidth / opts.inSampleSize;
+        opts.inTargetDensity = request.width;
+        opts.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        return BitmapFactory.decodeResource(res, request.resId, opts);
+    }
+
+    // Region decoding reads only the requested rows; it ignores density, so scaling happens after.
+    private static Bitmap decodeSlice(Resources res, Request request, int srcWidth) throws IOException {
+        int sliceHeight = request.srcBottom - request.srcTop;
+        BitmapFactory.Options opts = new BitmapFactory.Options();
+        opts.inSampleSize = sampleSize(srcWidth, sliceHeight, request.width, request.height);
+        opts.inPreferredConfig = Bitmap.Config.ARGB_8888;
+
+        try (InputStream in = res.openRawResource(request.resId)) {
+            BitmapRegionDecoder decoder = BitmapRegionDecoder.newInstance(in);
+            try {
+                return decoder.decodeRegion(new Rect(0, request.srcTop, srcWidth, request.srcBottom), opts);
+            } finally {
+                decoder.recycle();
+            }
+        }
+    }
+
+    private static Bitmap finish(Bitmap bitmap, boolean hardware) {
+        if (hardware) {
+            return replace(bitmap, bitmap.copy(Bitmap.Config.HARDWARE, false));
+        } else if (!bitmap.hasAlpha() && bitmap.getConfig() != Bitmap.Config.RGB_565) {
+            return replace(bitmap, bitmap.copy(Bitmap.Config.RGB_565, false));
+        }
+        return bitmap;
+    }
+
+    private static Bitmap replace(Bitmap old, Bitmap next) {
+        if (next == null) return old;
+        if (next != old) old.recycle();
+        return next;
+    }
+
+    // Largest power of two that still leaves the image at least as big as the target.
+    static int sampleSize(int srcWidth, int srcHeight, int width, int height) {
+        int sample = 1;
+        while (srcWidth / (sample * 2) >= width && srcHeight / (sample * 2) >= height) {
+            sample *= 2;
+        }
+        return sample;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.soarandsorcery;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AtlasPackerTest {
+
+    @Test
+    public void pack_placesSpritesWithoutOverlap() {
+        // Knight, coin, bird, two castle caps and two castle tiles on a 1080 px wide screen.
+        int[] w = { 108, 72, 108, 180, 180, 180, 180 };
+        int[] h = { 108, 72, 76, 68, 360, 68, 360 };
+        int[] x = new int[w.length];
+        int[] y = new int[w.length];
+
+        int width = AtlasPacker.chooseWidth(w, h, 1);
+        int height = AtlasPacker.pack(w, h, width, 1, x, y);
+
+        for (int i = 0; i < w.length; i++) {
+            assertTrue(x[i] >= 0 && x[i] + w[i] <= width);
+            assertTrue(y[i] >= 0 && y[i] + h[i] <= height);
+            for (int j = i + 1; j < w.length; j++) {
+                boolean apart = x[i] + w[i] <= x[j] || x[j] + w[j] <= x[i]
+                        || y[i] + h[i] <= y[j] || y[j] + h[j] <= y[i];
+                assertTrue("sprites " + i + " and " + j + " overlap", apart);
+            }
+        }
+    }
+
+    @Test
+    public void chooseWidth_isPowerOfTwoWideEnoughForWidest() {
+        int width = AtlasPacker.chooseWidth(new int[] { 300, 10 }, new int[] { 10, 10 }, 1);
+
+        assertEquals(512, width);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.soarandsorcery;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FrameSchedulerTest {
+
+    private static class RecordingDriver implements FrameScheduler.Driver {
+        boolean continuous;
+        int requests;
+
+        @Override public void startFrames() { continuous = true; }
+        @Override public void stopFrames() { continuous = false; }
+        @Override public void requestFrame() { requests++; }
+    }
+
+    private RecordingDriver driver;
+    private FrameScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        driver = new RecordingDriver();
+        scheduler = new FrameScheduler(driver);
+    }
+
+    @Test
+    public void inactive_neverDraws() {
+        scheduler.setState(FrameScheduler.State.RUNNING);
+        scheduler.requestFrame();
+
+        assertFalse(driver.continuous);
+        assertEquals(0, driver.requests);
+        assertFalse(scheduler.wantsNextFrame());
+    }
+
+    @Test
+    public void idle_drawsOnDemandOnly() {
+        scheduler.setActive(true);
+        int afterActivate = driver.requests;
+
+        assertFalse(driver.continuous);
+        assertFalse(scheduler.wantsNextFrame());
+
+        scheduler.requestFrame();
+        assertEquals(afterActivate + 1, driver.requests);
+    }
+
+    @Test
+    public void running_drawsContinuouslyUntilGameOver() {
+        scheduler.setActive(true);
+        scheduler.setState(FrameScheduler.State.RUNNING);
+        assertTrue(driver.continuous);
+        assertTrue(scheduler.wantsNextFrame());
+
+        scheduler.setState(FrameScheduler.State.GAME_OVER);
+        assertFalse(driver.continuous);
+        assertFalse(scheduler.wantsNextFrame());
+    }
+
+    @Test
+    public void goingInactive_stopsRunningLoop() {
+        scheduler.setActive(true);
+        scheduler.setState(FrameScheduler.State.RUNNING);
+
+        scheduler.setActive(false);
+        assertFalse(driver.continuous);
+        assertFalse(scheduler.wantsNextFrame());
+
+        scheduler.setActive(true);
+        assertTrue(driver.continuous);
+    }
+}
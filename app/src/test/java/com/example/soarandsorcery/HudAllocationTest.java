@@ -0,0 +1,85 @@
+package com.example.soarandsorcery;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class HudAllocationTest {
+
+    private static final int KNIGHT = 108;
+
+    @Test
+    public void scoreDigits_formatWithoutStrings() {
+        ScoreDigits digits = new ScoreDigits();
+
+        assertTrue(digits.set(0));
+        assertEquals("0", new String(digits.chars(), 0, digits.length()));
+
+        assertTrue(digits.set(1205));
+        assertEquals("1205", new String(digits.chars(), 0, digits.length()));
+        assertEquals(2, digits.digitAt(1));
+
+        assertFalse(digits.set(1205));
+
+        assertTrue(digits.set(Integer.MAX_VALUE));
+        assertEquals(String.valueOf(Integer.MAX_VALUE), new String(digits.chars(), 0, digits.length()));
+    }
+
+    @Test
+    public void runningLoop_allocatesNothingPerFrame() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        GameWorld world = new GameWorld(new Random(42));
+        world.setDimensions(1080, 2280, KNIGHT, KNIGHT, 180, 72, 72);
+        world.reset();
+        world.start();
+        ScoreDigits digits = new ScoreDigits();
+
+        // Warm up so class loading and JIT bookkeeping are out of the measurement.
+        long now = runFrames(world, digits, 0, 20_000);
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        int frames = 1_000_000;
+        runFrames(world, digits, now, frames);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue("allocated " + allocated + " bytes over " + frames + " frames",
+                allocated < 1024);
+    }
+
+    // 60 fps frames with a simple autopilot; a crash just starts a new run.
+    private static long runFrames(GameWorld world, ScoreDigits digits, long now, int frames) {
+        for (int f = 0; f < frames; f++) {
+            now += 16_666_667L;
+
+            int next = nextTube(world);
+            int gapBottom = world.getGapTop(next) + world.getGap(next);
+            if (world.getVelocity() > 0 && world.getKnightY() + KNIGHT + 60 > gapBottom) {
+                world.flap();
+            }
+
+            world.advance(now);
+            digits.set(world.getScore());
+
+            if (world.isGameOver()) {
+                world.reset();
+                world.start();
+            }
+        }
+        return now;
+    }
+
+    private static int nextTube(GameWorld world) {
+        int next = 0;
+        while (world.getTubeX(next) + 180 < world.getKnightX()) next++;
+        return next;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.soarandsorcery;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ParallaxTest {
+
+    @Test
+    public void tileOffset_wrapsAndFollowsTheLayerSpeed() {
+        assertEquals(0, Parallax.tileOffset(0, 0.5f, 1080));
+        assertEquals(100, Parallax.tileOffset(200, 0.5f, 1080));
+        assertEquals(0, Parallax.tileOffset(2160, 0.5f, 1080));
+        assertEquals(20, Parallax.tileOffset(2200, 0.5f, 1080));
+        // Before the first tick the scroll is slightly negative.
+        assertEquals(1076, Parallax.tileOffset(-8, 0.5f, 1080));
+    }
+
+    @Test
+    public void tileOffset_staysInRangeOverALongRun() {
+        for (long tick = 0; tick < 1_000_000; tick += 997) {
+            int offset = Parallax.tileOffset(tick * 8f, 0.2f, 1080);
+            assertTrue(offset >= 0 && offset < 1080);
+        }
+    }
+
+    @Test
+    public void ridge_meetsItselfAcrossTheSeam() {
+        for (int seed = 0; seed < 4; seed++) {
+            float first = Parallax.ridge(0, 1080, 200, seed);
+            assertEquals(first, Parallax.ridge(1080, 1080, 200, seed), 1e-3f);
+            for (int x = 0; x <= 1080; x += 4) {
+                float y = Parallax.ridge(x, 1080, 200, seed);
+                assertTrue(y >= 0 && y <= 200);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+import groovy.json.JsonSlurper
+
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    jmh(project(":core"))
+    jmh(libs.json)
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+}
+
+// ---------- BASELINE ----------
+// ./gradlew :benchmark:jmhSaveBaseline  stores the current results in baseline/results.json
+// ./gradlew :benchmark:jmhCheck         runs again and fails on a regression past -PjmhThreshold (default 0.10)
+
+val jmhResults = layout.buildDirectory.file("results/jmh/results.json")
+val jmhBaseline = layout.projectDirectory.file("baseline/results.json")
+
+tasks.register<Copy>("jmhSaveBaseline") {
+    group = "benchmark"
+    description = "Runs the benchmarks and keeps the results as the baseline."
+    dependsOn("jmh")
+    from(jmhResults)
+    into(layout.projectDirectory.dir("baseline"))
+}
+
+tasks.register("jmhCheck") {
+    group = "benchmark"
+    description = "Runs the benchmarks and fails if any is slower or allocates more than the baseline allows."
+    dependsOn("jmh")
+
+    val threshold = (findProperty("jmhThreshold") as String?)?.toDouble() ?: 0.10
+    val resultsFile = jmhResults.get().asFile
+    val baselineFile = jmhBaseline.asFile
+
+    doLast {
+        if (!baselineFile.isFile) {
+            throw GradleException("No baseline at $baselineFile; run jmhSaveBaseline first")
+        }
+        val baseline = readJmh(baselineFile)
+        val current = readJmh(resultsFile)
+
+        val failures = mutableListOf<String>()
+        for ((name, now) in current) {
+            val before = baseline[name] ?: continue
+            // Throughput modes are better when higher, time modes when lower.
+            val change = if (now.mode == "thrpt") before.score / now.score - 1 else now.score / before.score - 1
+            val line = "%s: %.3f -> %.3f %s (%+.1f%%)".format(name, before.score, now.score, now.unit, change * 100)
+            logger.lifecycle(line)
+            if (change > threshold) failures += line
+
+            // A few bytes per op of slack, since gc.alloc.rate.norm is not exactly zero even for allocation-free code.
+            if (now.allocBytes > before.allocBytes * (1 + threshold) + 8) {
+                failures += "%s: allocates %.1f B/op, baseline %.1f B/op".format(name, now.allocBytes, before.allocBytes)
+            }
+        }
+        if (failures.isNotEmpty()) {
+            throw GradleException("Benchmarks regressed by more than ${threshold * 100}%:\n" + failures.joinToString("\n"))
+        }
+    }
+}
+
+class JmhScore(val mode: String, val score: Double, val unit: String, val allocBytes: Double)
+
+@Suppress("UNCHECKED_CAST")
+fun readJmh(file: File): Map<String, JmhScore> {
+    val runs = JsonSlurper().parse(file) as List<Map<String, Any?>>
+    return runs.associate { run ->
+        val primary = run["primaryMetric"] as Map<String, Any?>
+        val secondary = run["secondaryMetrics"] as Map<String, Map<String, Any?>>? ?: emptyMap()
+        val alloc = secondary.entries.firstOrNull { it.key.trimStart('·') == "gc.alloc.rate.norm" }?.value
+        run["benchmark"] as String to JmhScore(
+            run["mode"] as String,
+            (primary["score"] as Number).toDouble(),
+            primary["scoreUnit"] as String,
+            (alloc?.get("score") as Number?)?.toDouble() ?: 0.0
+        )
+    }
+}
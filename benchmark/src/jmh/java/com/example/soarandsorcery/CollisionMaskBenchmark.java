@@ -0,0 +1,48 @@
+package com.example.soarandsorcery;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pixel narrow phase at reference sprite sizes: knight against coin and knight
+ * against a castle edge, both placed so the boxes overlap but no pixels do, which
+ * is the worst case because every overlapping row is scanned.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CollisionMaskBenchmark {
+
+    private final CollisionMask knight = disc(108, 108);
+    private final CollisionMask coin = disc(72, 72);
+
+    @Benchmark
+    public boolean knightAgainstCoin() {
+        // Corner to corner: boxes overlap by 24 px each way, the discs do not touch.
+        return knight.overlaps(coin, 84, 84);
+    }
+
+    @Benchmark
+    public boolean knightAgainstCastle() {
+        // A castle wall 10 px into the knight's box, past the transparent corner only.
+        return knight.anyInRect(98, 0, 98 + 180, 20);
+    }
+
+    private static CollisionMask disc(int w, int h) {
+        int[] argb = new int[w * h];
+        float r = w / 2f;
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                float fx = x + 0.5f - r, fy = y + 0.5f - r;
+                if (fx * fx + fy * fy <= r * r) argb[y * w + x] = 0xFF000000;
+            }
+        }
+        return CollisionMask.fromArgb(argb, w, h, CollisionMask.DEFAULT_ALPHA_THRESHOLD);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.soarandsorcery;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-tick rules on the reference layout: a whole tick (castle movement, coin
+ * pickup, physics and collision), castle recycling, and the collision check alone
+ * while the knight is inside a castle's column. Headless worlds lay the course out
+ * inline, so recycling includes making the castle and its solvability check, and a
+ * tick pays for it once every castle.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GameTickBenchmark {
+
+    private GameWorld world;
+    private GameWorld overlapping;
+    private ReferencePilot pilot;
+    private long seed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        world = new HeadlessSimulator().world();
+        pilot = new ReferencePilot(0, 0, 60);
+        restart();
+
+        overlapping = new HeadlessSimulator().world();
+        flyIntoCastle(overlapping);
+    }
+
+    @Benchmark
+    public long tick() {
+        if (!world.isRunning()) restart();
+        if (pilot.shouldFlap(world)) world.flap();
+        world.tick();
+        return world.getTick();
+    }
+
+    @Benchmark
+    public int recycleCastle() {
+        // Recycling keeps moving castles right; start over long before that overflows.
+        if (world.getTubeX(0) > 1_000_000) restart();
+        world.recycleCastle();
+        return world.getGapTop(world.getTubeCount() - 1);
+    }
+
+    @Benchmark
+    public boolean checkCollision() {
+        overlapping.checkCollision();
+        return overlapping.isRunning();
+    }
+
+    private void restart() {
+        seed++;
+        world.setSeed(seed);
+        world.reset();
+        world.start();
+        pilot.reset(seed);
+    }
+
+    // Plays seeds until one leaves the knight alive between the walls of a castle.
+    private static void flyIntoCastle(GameWorld w) {
+        ReferencePilot exact = new ReferencePilot(0, 0, 60);
+        for (long s = 1; ; s++) {
+            w.setSeed(s);
+            w.reset();
+            w.start();
+            exact.reset(s);
+            while (w.isRunning()) {
+                if (exact.shouldFlap(w)) w.flap();
+                w.tick();
+                if (w.isRunning() && insideColumn(w)) return;
+            }
+        }
+    }
+
+    private static boolean insideColumn(GameWorld w) {
+        for (int i = 0; i < w.getTubeCount(); i++) {
+            if (w.getKnightX() + w.getKnightWidth() > w.getTubeX(i)
+                    && w.getKnightX() < w.getTubeX(i) + w.getCastleWidth()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.soarandsorcery;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The local top 10 as the nickname screen uses it: load, add a score, save. The
+ * old JSON list keeps its storage in an in-memory string, so it measures the JSON
+ * and list work only. The binary store runs its writes on a no-op executor, so
+ * it shows what the UI thread pays per add; the file writes happen elsewhere.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HighscoreBenchmark {
+
+    private static final class MemoryStorage implements LocalHighscores.Storage {
+        String value;
+
+        @Override
+        public String read() {
+            return value;
+        }
+
+        @Override
+        public void write(String value) {
+            this.value = value;
+        }
+    }
+
+    private final MemoryStorage storage = new MemoryStorage();
+    private final LocalHighscores highscores = new LocalHighscores(storage);
+    private List<ScoreEntry> full;
+    private Path dir;
+    private HighscoreStore store;
+    private int nextScore;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        full = new ArrayList<>();
+        for (int i = 0; i < LocalHighscores.MAX_ENTRIES; i++) {
+            full.add(new ScoreEntry("K" + (char) ('A' + i) + "T", 100 - i * 7));
+        }
+        highscores.save(full);
+
+        dir = Files.createTempDirectory("highscores");
+        store = new HighscoreStore(dir.toFile(), LocalHighscores.MAX_ENTRIES, task -> { });
+        store.load();
+        for (ScoreEntry e : full) store.add(e.name, e.score, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public List<ScoreEntry> loadHighscores() {
+        return highscores.load();
+    }
+
+    @Benchmark
+    public String saveHighscores() {
+        highscores.save(full);
+        return storage.value;
+    }
+
+    // Scores cycle through 0..127. The table soon holds nothing but 127s, so this
+    // measures the usual case: a run that misses the top 10 and is dropped.
+    @Benchmark
+    public String addScoreIfTop10() {
+        highscores.addScoreIfTop10("NEW", nextScore++ & 127);
+        return storage.value;
+    }
+
+    // Same score stream. Runs that miss the top 10 only queue a history record.
+    @Benchmark
+    public int storeAdd() throws IOException {
+        int place = store.add("NEW", nextScore++ & 127, nextScore);
+        if ((nextScore & 1023) == 0) store.flush(); // keep the pending history small
+        return place;
+    }
+
+    @Benchmark
+    public List<ScoreEntry> storeTop() {
+        return store.top();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.soarandsorcery;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What a full particle pool costs per frame on the CPU side: one tick of 4096
+ * live particles, and filling the point buffers the renderer hands to drawPoints.
+ * Bursts keep the pool topped up so nothing burns out during a measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParticleBenchmark {
+
+    private static final int CAPACITY = 4096;
+
+    private final ParticleSystem particles = new ParticleSystem(CAPACITY);
+    private final float[] points = new float[2 * CAPACITY];
+    private int color;
+
+    @Setup
+    public void fill() {
+        particles.setGravity(1.5f);
+        topUp();
+    }
+
+    private void topUp() {
+        particles.burst(540, 1140, CAPACITY, 12, -8, 0, color++ % ParticleSystem.COLORS, 1_000_000);
+    }
+
+    @Benchmark
+    public int tick() {
+        particles.tick();
+        topUp();
+        return particles.count();
+    }
+
+    @Benchmark
+    public int fillPoints() {
+        int n = 0;
+        for (int c = 0; c < ParticleSystem.COLORS; c++) {
+            n += particles.fillPoints(c, points);
+        }
+        return n;
+    }
+}
@@ -0,0 +1,14 @@
+plugins {
+    `java-library`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    // Part of the Android platform; JVM consumers bring their own copy.
+    compileOnly(libs.json)
+    testImplementation(libs.junit)
+}
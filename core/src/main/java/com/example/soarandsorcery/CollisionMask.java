@@ -0,0 +1,133 @@
+package com.example.soarandsorcery;
+
+/**
+ * Which pixels of a sprite are solid, one bit per pixel packed into longs, row by
+ * row. Bit {@code x % 64} of word {@code x / 64} is column x; bits past the width
+ * stay zero, so whole words can be ANDed without masking the row ends.
+ *
+ * Masks are built at the size the sprite is drawn, so mask pixels are canvas pixels.
+ */
+public final class CollisionMask {
+
+    /** Pixels at least this opaque are solid. */
+    public static final int DEFAULT_ALPHA_THRESHOLD = 128;
+
+    private final int width;
+    private final int height;
+    private final int words;
+    private final long[] bits;
+    // First and last rows with a solid pixel; firstRow > lastRow when the mask is empty.
+    private final int firstRow;
+    private final int lastRow;
+
+    private CollisionMask(int width, int height, long[] bits) {
+        this.width = width;
+        this.height = height;
+        this.words = (width + 63) >>> 6;
+        this.bits = bits;
+
+        int first = height, last = -1;
+        for (int y = 0; y < height; y++) {
+            if (!rowEmpty(y)) {
+                if (first == height) first = y;
+                last = y;
+            }
+        }
+        this.firstRow = first;
+        this.lastRow = last;
+    }
+
+    /** Builds a mask from packed ARGB pixels, row by row, as {@code Bitmap.getPixels} returns them. */
+    public static CollisionMask fromArgb(int[] argb, int width, int height, int alphaThreshold) {
+        if (argb.length < width * height) {
+            throw new IllegalArgumentException("Need " + width * height + " pixels, got " + argb.length);
+        }
+        int words = (width + 63) >>> 6;
+        long[] bits = new long[words * height];
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            int base = y * words;
+            for (int x = 0; x < width; x++) {
+                if ((argb[row + x] >>> 24) >= alphaThreshold) {
+                    bits[base + (x >>> 6)] |= 1L << (x & 63);
+                }
+            }
+        }
+        return new CollisionMask(width, height, bits);
+    }
+
+    public int width() { return width; }
+    public int height() { return height; }
+    /** First row with a solid pixel, or {@link #height()} if there is none. */
+    public int firstRow() { return firstRow; }
+    /** Last row with a solid pixel, or -1 if there is none. */
+    public int lastRow() { return lastRow; }
+
+    public boolean get(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) return false;
+        return (bits[y * words + (x >>> 6)] & (1L << (x & 63))) != 0;
+    }
+
+    /** Whether any solid pixel lies in {@code [left, right) x [top, bottom)}, in mask coordinates. */
+    public boolean anyInRect(int left, int top, int right, int bottom) {
+        left = Math.max(left, 0);
+        top = Math.max(top, firstRow);
+        right = Math.min(right, width);
+        bottom = Math.min(bottom, lastRow + 1);
+        if (left >= right || top >= bottom) return false;
+
+        int firstWord = left >>> 6;
+        int lastWord = (right - 1) >>> 6;
+        long firstMask = -1L << (left & 63);
+        long lastMask = -1L >>> (63 - ((right - 1) & 63));
+
+        for (int y = top; y < bottom; y++) {
+            int base = y * words;
+            for (int w = firstWord; w <= lastWord; w++) {
+                long m = -1L;
+                if (w == firstWord) m &= firstMask;
+                if (w == lastWord) m &= lastMask;
+                if ((bits[base + w] & m) != 0) return true;
+            }
+        }
+        return false;
+    }
+
+    /** Whether this mask at (0, 0) and {@code other} with its corner at (dx, dy) share a solid pixel. */
+    public boolean overlaps(CollisionMask other, int dx, int dy) {
+        int top = Math.max(firstRow, dy + other.firstRow);
+        int bottom = Math.min(lastRow + 1, dy + other.lastRow + 1);
+        int left = Math.max(0, dx);
+        int right = Math.min(width, dx + other.width);
+        if (left >= right || top >= bottom) return false;
+
+        int firstWord = left >>> 6;
+        int lastWord = (right - 1) >>> 6;
+        for (int y = top; y < bottom; y++) {
+            int base = y * words;
+            int otherBase = (y - dy) * other.words;
+            for (int w = firstWord; w <= lastWord; w++) {
+                if ((bits[base + w] & other.rowBits(otherBase, (w << 6) - dx)) != 0) return true;
+            }
+        }
+        return false;
+    }
+
+    // 64 columns of one row starting at column {@code from}; columns outside the mask read as zero.
+    private long rowBits(int base, int from) {
+        int w = from >> 6;
+        int shift = from & 63;
+        long lo = w >= 0 && w < words ? bits[base + w] : 0L;
+        if (shift == 0) return lo;
+        long hi = w + 1 >= 0 && w + 1 < words ? bits[base + w + 1] : 0L;
+        return (lo >>> shift) | (hi << (64 - shift));
+    }
+
+    private boolean rowEmpty(int y) {
+        int base = y * words;
+        for (int w = 0; w < words; w++) {
+            if (bits[base + w] != 0) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,399 @@
+package com.example.soarandsorcery;
+
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lays out the course ahead of the knight from one seed: for every castle its gap
+ * and the coin released when it is passed.
+ *
+ * Castles are made in chunks on a background executor and handed to the tick loop
+ * through an {@link SpscQueue}, so spawning a castle only reads numbers that are
+ * already there; played chunks go back through a second queue to be refilled. With
+ * no executor, or if the producer ever falls behind, the tick loop makes the chunk
+ * itself. Chunks are only ever made under this object's lock, one after another,
+ * so there is still a single producer and a seed gives the same course whoever
+ * made it.
+ *
+ * Every castle is checked against the flap physics before it is handed out. The
+ * generator keeps the heights the knight can be at after each tick, per number of
+ * ticks since its last flap, as if every input were possible; a gap that none of
+ * them reaches is drawn again, and after {@link #MAX_TRIES} draws it is widened
+ * around the previous one until a path fits. Small minimum gaps on short screens
+ * therefore make the course hard rather than impossible.
+ */
+final class CourseGenerator {
+
+    private static final int ASYNC_CHUNK = 16;
+    // Inline, a chunk costs the tick loop; headless runs often end before the second castle.
+    private static final int INLINE_CHUNK = 2;
+    private static final int QUEUE_CHUNKS = 4;
+    private static final int MAX_TRIES = 8;
+    private static final int MAX_AGE = 512;
+
+    /** Castles made together, in course order. */
+    static final class Chunk {
+        final int[] gapTop;
+        final int[] gap;
+        /** y of the coin released when the castle is passed, or -1. */
+        final int[] coinY;
+        int epoch;
+
+        Chunk(int castles) {
+            gapTop = new int[castles];
+            gap = new int[castles];
+            coinY = new int[castles];
+        }
+
+        int count() {
+            return gapTop.length;
+        }
+    }
+
+    /*
+     * Heights the knight's top can be at, as a range for each number of ticks since
+     * the last flap (lo > hi when there are none), plus the single height of a knight
+     * that has not flapped yet. Ranges are kept as their hull; the heights different
+     * flap timings give for one age are close enough together that the gaps in
+     * between do not matter at this scale. minY..maxY is the hull of everything and
+     * ages past oldest are all empty, so a tick only touches the ages in use.
+     */
+    private static final class Reach {
+        final int[] lo = new int[MAX_AGE + 1];
+        final int[] hi = new int[MAX_AGE + 1];
+        int oldest;
+        int minY, maxY;
+        boolean falling;
+        int fallY, fallVelocity;
+        long tick;
+
+        void copyFrom(Reach other) {
+            System.arraycopy(other.lo, 0, lo, 0, other.oldest + 1);
+            System.arraycopy(other.hi, 0, hi, 0, other.oldest + 1);
+            oldest = other.oldest;
+            minY = other.minY;
+            maxY = other.maxY;
+            falling = other.falling;
+            fallY = other.fallY;
+            fallVelocity = other.fallVelocity;
+            tick = other.tick;
+        }
+
+        boolean alive() {
+            return minY <= maxY;
+        }
+    }
+
+    private final Executor executor;
+    private final int chunkCastles;
+    private final SpscQueue<Chunk> ready = new SpscQueue<>(QUEUE_CHUNKS);
+    private final SpscQueue<Chunk> spare = new SpscQueue<>(QUEUE_CHUNKS + 2);
+    private final AtomicBoolean refillPending = new AtomicBoolean();
+    private final Runnable refill = this::refill;
+
+    // ---------- PRODUCER: guarded by this ----------
+    private final Random random = new Random();
+    private int epoch;
+    private int canvasWidth, canvasHeight;
+    private int knightX, knightWidth, knightHeight;
+    private int castleWidth, spacing, coinHeight;
+    private int gravity, flapVelocity, castleVelocity, coinEvery;
+    private int firstGap, minGap, gapShrinkStep, shrinkEvery;
+    private int maxAge;
+    private long castleIndex;
+    private int lastGapTop, lastGap;
+    private Reach reach = new Reach();
+    private Reach trial = new Reach();
+    private Reach next = new Reach();
+
+    // ---------- CONSUMER: the tick loop only ----------
+    private int consumerEpoch;
+    private Chunk current;
+    private int index;
+
+    /** @param executor where chunks are made ahead of time, or null to make them on demand */
+    CourseGenerator(Executor executor) {
+        this.executor = executor;
+        this.chunkCastles = executor != null ? ASYNC_CHUNK : INLINE_CHUNK;
+    }
+
+    /**
+     * Starts a new course; whatever was made for the previous one is thrown away.
+     * Called from the tick loop's thread.
+     */
+    void restart(long seed, Difficulty difficulty, int canvasWidth, int canvasHeight,
+                 int knightX, int knightY, int knightWidth, int knightHeight,
+                 int castleWidth, int spacing, int coinHeight) {
+        synchronized (this) {
+            epoch++;
+            this.canvasWidth = canvasWidth;
+            this.canvasHeight = canvasHeight;
+            this.knightX = knightX;
+            this.knightWidth = knightWidth;
+            this.knightHeight = knightHeight;
+            this.castleWidth = castleWidth;
+            this.spacing = spacing;
+            this.coinHeight = coinHeight;
+            gravity = difficulty.gravity;
+            flapVelocity = difficulty.flapVelocity;
+            castleVelocity = difficulty.castleVelocity;
+            coinEvery = difficulty.coinEvery;
+            firstGap = canvasHeight / difficulty.gapDivisor;
+            minGap = canvasHeight / difficulty.minGapDivisor;
+            gapShrinkStep = canvasHeight / difficulty.gapShrinkDivisor;
+            shrinkEvery = difficulty.shrinkEvery;
+            maxAge = oldestSurvivableAge();
+
+            random.setSeed(seed);
+            castleIndex = 0;
+            lastGap = firstGap;
+            lastGapTop = (canvasHeight - firstGap) / 2;
+            reach.oldest = 0;
+            reach.falling = true;
+            reach.fallY = knightY;
+            reach.fallVelocity = 0;
+            reach.minY = knightY;
+            reach.maxY = knightY;
+            reach.tick = 0;
+
+            consumerEpoch = epoch;
+
+            // Still under the lock, so nothing in the queue can be for the new course yet.
+            recycle(current);
+            current = null;
+            Chunk stale;
+            while ((stale = ready.poll()) != null) recycle(stale);
+        }
+        scheduleRefill();
+    }
+
+    /** Moves on to the next castle of the course; call before reading it. Tick loop only. */
+    void advance() {
+        if (current != null && ++index < current.count()) return;
+        recycle(current);
+        current = take();
+        index = 0;
+    }
+
+    int gapTop() { return current.gapTop[index]; }
+    int gap() { return current.gap[index]; }
+    int coinY() { return current.coinY[index]; }
+
+    private Chunk take() {
+        while (true) {
+            Chunk c = ready.poll();
+            if (c == null) {
+                // The producer is behind, or there is none: make one here instead of waiting.
+                produce();
+            } else if (c.epoch == consumerEpoch) {
+                scheduleRefill();
+                return c;
+            } else {
+                recycle(c);
+            }
+        }
+    }
+
+    private void recycle(Chunk c) {
+        if (c != null) spare.offer(c);
+    }
+
+    private void scheduleRefill() {
+        if (executor == null || !refillPending.compareAndSet(false, true)) return;
+        try {
+            executor.execute(refill);
+        } catch (RejectedExecutionException e) {
+            // Shut down: the tick loop makes its own chunks from here on.
+            refillPending.set(false);
+        }
+    }
+
+    private void refill() {
+        try {
+            while (produce()) {
+                // until the queue is full
+            }
+        } finally {
+            refillPending.set(false);
+        }
+    }
+
+    // Makes one chunk for the current course; false if there is no room for it yet.
+    private synchronized boolean produce() {
+        if (ready.isFull()) return false;
+        Chunk c = spare.poll();
+        if (c == null) c = new Chunk(chunkCastles);
+        c.epoch = epoch;
+        for (int i = 0; i < chunkCastles; i++) {
+            nextCastle(c, i);
+        }
+        return ready.offer(c);
+    }
+
+    private void nextCastle(Chunk c, int i) {
+        long k = castleIndex++;
+        int size = scheduledGap(k);
+        int gapTop = -1;
+
+        for (int attempt = 0; attempt < MAX_TRIES && gapTop < 0; attempt++) {
+            int top = getRandomGapTop(size);
+            if (reachable(k, top, size)) gapTop = top;
+        }
+
+        if (gapTop < 0) {
+            // Open the gap up around the previous one until some path gets through.
+            int center = lastGapTop + lastGap / 2;
+            int widest = canvasHeight - 2 * (canvasHeight / 12);
+            int step = Math.max(1, canvasHeight / 40);
+            for (int s = size; gapTop < 0; s = Math.min(s + step, widest)) {
+                int top = Math.max(canvasHeight / 12, Math.min(center - s / 2, canvasHeight - canvasHeight / 12 - s));
+                if (reachable(k, top, s) || s >= widest) {
+                    gapTop = top;
+                    size = s;
+                }
+            }
+            if (!trial.alive()) {
+                // Beyond what the physics can do at all; do not let it poison the rest of the course.
+                for (int a = 1; a <= maxAge; a++) {
+                    trial.lo[a] = 0;
+                    trial.hi[a] = canvasHeight - knightHeight;
+                }
+                trial.oldest = maxAge;
+                trial.minY = 0;
+                trial.maxY = canvasHeight - knightHeight;
+                trial.falling = false;
+                if (castleVelocity > 0) {
+                    long behind = canvasWidth + k * spacing + castleWidth - knightX;
+                    trial.tick = Math.max(trial.tick, (behind + castleVelocity - 1) / castleVelocity);
+                }
+            }
+        }
+
+        Reach done = reach;
+        reach = trial;
+        trial = done;
+        lastGapTop = gapTop;
+        lastGap = size;
+
+        c.gapTop[i] = gapTop;
+        c.gap[i] = size;
+        c.coinY[i] = coinEvery > 0 && (k + 1) % coinEvery == 0
+                ? random.nextInt(canvasHeight - coinHeight + 1)
+                : -1;
+    }
+
+    // Gaps shrink by a step every shrinkEvery castles, down to minGap.
+    private int scheduledGap(long castle) {
+        if (shrinkEvery <= 0) return firstGap;
+        long shrunk = firstGap - (castle / shrinkEvery) * gapShrinkStep;
+        return (int) Math.max(minGap, shrunk);
+    }
+
+    // Gap-center randomization
+    private int getRandomGapTop(int gap) {
+        int edgePadding = canvasHeight / 12;
+        int minGapCenter = edgePadding + (gap / 2);
+        int maxGapCenter = canvasHeight - edgePadding - (gap / 2);
+
+        int gapCenter = maxGapCenter > minGapCenter
+                ? random.nextInt(maxGapCenter - minGapCenter) + minGapCenter
+                : canvasHeight / 2;
+
+        return gapCenter - (gap / 2);
+    }
+
+    /*
+     * Runs the reachable heights from the end of the previous castle to the end of
+     * castle k, with its gap at [gapTop, gapTop + gap), into trial. A tick is inside
+     * the castle's column when the castle overlaps the knight at any point of its
+     * move, the same span the swept collision checks.
+     */
+    private boolean reachable(long k, int gapTop, int gap) {
+        trial.copyFrom(reach);
+        if (castleVelocity <= 0) return true;
+
+        long spawnX = canvasWidth + k * spacing;
+        int floor = canvasHeight - knightHeight;
+        for (long n = trial.tick + 1; ; n++) {
+            long prevX = spawnX - (n - 1) * castleVelocity;
+            if (prevX + castleWidth <= knightX) break;
+            long x = prevX - castleVelocity;
+
+            boolean inColumn = x < knightX + knightWidth;
+            int top = inColumn ? Math.max(0, gapTop) : 0;
+            int bottom = inColumn ? Math.min(floor, gapTop + gap - knightHeight) : floor;
+            step(trial, next, top, bottom);
+            Reach t = trial;
+            trial = next;
+            next = t;
+            trial.tick = n;
+            if (!trial.alive()) return false;
+        }
+        return true;
+    }
+
+    // One tick of every reachable state, flapping or not, kept to heights in [top, bottom].
+    private void step(Reach from, Reach to, int top, int bottom) {
+        int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+        int oldest = 0;
+
+        // Flap: velocity becomes flapVelocity, then gravity is added before the move.
+        int v = flapVelocity + gravity;
+        to.lo[1] = 1;
+        to.hi[1] = 0;
+        if (from.alive()) {
+            int lo = Math.max(from.minY + v, top);
+            int hi = Math.min(from.maxY + v, bottom);
+            if (lo <= hi) {
+                to.lo[1] = lo;
+                to.hi[1] = hi;
+                minY = lo;
+                maxY = hi;
+                oldest = 1;
+            }
+        }
+
+        // No flap: every age is one tick older and falls a little faster.
+        int[] fromLo = from.lo, fromHi = from.hi, toLo = to.lo, toHi = to.hi;
+        int last = Math.min(from.oldest + 1, maxAge);
+        for (int a = 2; a <= last; a++) {
+            v += gravity;
+            int lo = Math.max(fromLo[a - 1] + v, top);
+            int hi = Math.min(fromHi[a - 1] + v, bottom);
+            toLo[a] = lo;
+            toHi[a] = hi;
+            if (lo <= hi) {
+                if (lo < minY) minY = lo;
+                if (hi > maxY) maxY = hi;
+                oldest = a;
+            }
+        }
+
+        to.falling = false;
+        if (from.falling) {
+            to.fallVelocity = from.fallVelocity + gravity;
+            to.fallY = from.fallY + to.fallVelocity;
+            to.falling = to.fallY >= top && to.fallY <= bottom;
+            if (to.falling) {
+                minY = Math.min(minY, to.fallY);
+                maxY = Math.max(maxY, to.fallY);
+            }
+        }
+
+        to.oldest = oldest;
+        to.minY = minY;
+        to.maxY = maxY;
+    }
+
+    // Ticks after a flap past which the knight is below the floor wherever it flapped.
+    private int oldestSurvivableAge() {
+        long fallen = 0;
+        for (int a = 1; a < MAX_AGE; a++) {
+            fallen += flapVelocity + (long) gravity * a;
+            if (fallen > canvasHeight - knightHeight) return a;
+        }
+        return MAX_AGE;
+    }
+}
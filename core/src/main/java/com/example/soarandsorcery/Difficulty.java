@@ -0,0 +1,114 @@
+package com.example.soarandsorcery;
+
+/**
+ * The tuning knobs of a run. Gap sizes are fractions of the canvas height so the
+ * same settings play the same on every screen; everything else is per tick.
+ * Instances are immutable; the {@code with...} methods return modified copies.
+ */
+public final class Difficulty {
+
+    public static final Difficulty DEFAULT = new Difficulty(3, 6, 40, 12, 8, 3, -40, 5);
+
+    /** Starting gap is canvasHeight / gapDivisor. */
+    public final int gapDivisor;
+    /** The gap never shrinks below canvasHeight / minGapDivisor. */
+    public final int minGapDivisor;
+    /** Each shrink takes canvasHeight / gapShrinkDivisor off the gap. */
+    public final int gapShrinkDivisor;
+    /** Castles passed between shrinks. */
+    public final int shrinkEvery;
+    public final int castleVelocity;
+    public final int gravity;
+    /** Vertical velocity a tap sets; negative is up. */
+    public final int flapVelocity;
+    /** A coin appears after every this many castles passed. */
+    public final int coinEvery;
+
+    public Difficulty(int gapDivisor, int minGapDivisor, int gapShrinkDivisor, int shrinkEvery,
+                      int castleVelocity, int gravity, int flapVelocity, int coinEvery) {
+        if (gapDivisor <= 0 || minGapDivisor <= 0 || gapShrinkDivisor <= 0
+                || shrinkEvery <= 0 || coinEvery <= 0) {
+            throw new IllegalArgumentException("Divisors and intervals must be positive");
+        }
+        this.gapDivisor = gapDivisor;
+        this.minGapDivisor = minGapDivisor;
+        this.gapShrinkDivisor = gapShrinkDivisor;
+        this.shrinkEvery = shrinkEvery;
+        this.castleVelocity = castleVelocity;
+        this.gravity = gravity;
+        this.flapVelocity = flapVelocity;
+        this.coinEvery = coinEvery;
+    }
+
+    public Difficulty withGapDivisor(int v) {
+        return new Difficulty(v, minGapDivisor, gapShrinkDivisor, shrinkEvery, castleVelocity, gravity, flapVelocity, coinEvery);
+    }
+
+    public Difficulty withMinGapDivisor(int v) {
+        return new Difficulty(gapDivisor, v, gapShrinkDivisor, shrinkEvery, castleVelocity, gravity, flapVelocity, coinEvery);
+    }
+
+    public Difficulty withGapShrinkDivisor(int v) {
+        return new Difficulty(gapDivisor, minGapDivisor, v, shrinkEvery, castleVelocity, gravity, flapVelocity, coinEvery);
+    }
+
+    public Difficulty withShrinkEvery(int v) {
+        return new Difficulty(gapDivisor, minGapDivisor, gapShrinkDivisor, v, castleVelocity, gravity, flapVelocity, coinEvery);
+    }
+
+    public Difficulty withCastleVelocity(int v) {
+        return new Difficulty(gapDivisor, minGapDivisor, gapShrinkDivisor, shrinkEvery, v, gravity, flapVelocity, coinEvery);
+    }
+
+    public Difficulty withGravity(int v) {
+        return new Difficulty(gapDivisor, minGapDivisor, gapShrinkDivisor, shrinkEvery, castleVelocity, v, flapVelocity, coinEvery);
+    }
+
+    public Difficulty withFlapVelocity(int v) {
+        return new Difficulty(gapDivisor, minGapDivisor, gapShrinkDivisor, shrinkEvery, castleVelocity, gravity, v, coinEvery);
+    }
+
+    public Difficulty withCoinEvery(int v) {
+        return new Difficulty(gapDivisor, minGapDivisor, gapShrinkDivisor, shrinkEvery, castleVelocity, gravity, flapVelocity, v);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Difficulty)) return false;
+        Difficulty d = (Difficulty) o;
+        return gapDivisor == d.gapDivisor
+                && minGapDivisor == d.minGapDivisor
+                && gapShrinkDivisor == d.gapShrinkDivisor
+                && shrinkEvery == d.shrinkEvery
+                && castleVelocity == d.castleVelocity
+                && gravity == d.gravity
+                && flapVelocity == d.flapVelocity
+                && coinEvery == d.coinEvery;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = gapDivisor;
+        h = 31 * h + minGapDivisor;
+        h = 31 * h + gapShrinkDivisor;
+        h = 31 * h + shrinkEvery;
+        h = 31 * h + castleVelocity;
+        h = 31 * h + gravity;
+        h = 31 * h + flapVelocity;
+        h = 31 * h + coinEvery;
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return "gapDivisor=" + gapDivisor
+                + " minGapDivisor=" + minGapDivisor
+                + " gapShrinkDivisor=" + gapShrinkDivisor
+                + " shrinkEvery=" + shrinkEvery
+                + " castleVelocity=" + castleVelocity
+                + " gravity=" + gravity
+                + " flapVelocity=" + flapVelocity
+                + " coinEvery=" + coinEvery;
+    }
+}
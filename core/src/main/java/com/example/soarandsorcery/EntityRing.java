@@ -0,0 +1,100 @@
+package com.example.soarandsorcery;
+
+/**
+ * A queue of same-kind entities stored as parallel primitive arrays in a ring.
+ *
+ * Everything in the world scrolls right to left, so entities are added on the right
+ * ({@link #add}) and retired in the same order once they leave on the left
+ * ({@link #removeFirst}); a FIFO ring covers it without ever moving or allocating
+ * anything. Slot arrays are package-visible so the tick loop reads them directly:
+ *
+ * <pre>
+ * for (int i = 0, n = ring.count(); i < n; i++) {
+ *     int s = ring.slot(i);
+ *     ring.x[s] -= speed;
+ * }
+ * </pre>
+ */
+final class EntityRing {
+
+    /** Castle was counted towards the score. */
+    static final int FLAG_PASSED = 1;
+    /** Pickup was collected; it stays in the ring until it scrolls off. */
+    static final int FLAG_COLLECTED = 2;
+
+    final int[] x;
+    final int[] prevX;
+    final int[] y;
+    /** Castles: gap height. Pickups: unused. */
+    final int[] size;
+    /** Pickups: what it is. Castles: unused. */
+    final int[] type;
+    /** Castles: y of the coin released when it is passed, or -1. Pickups: unused. */
+    final int[] coinY;
+    final int[] flags;
+
+    private final int mask;
+    private int head;
+    private int count;
+
+    /** Capacity is rounded up to a power of two. */
+    EntityRing(int capacity) {
+        int n = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        x = new int[n];
+        prevX = new int[n];
+        y = new int[n];
+        size = new int[n];
+        type = new int[n];
+        coinY = new int[n];
+        flags = new int[n];
+        mask = n - 1;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    int count() {
+        return count;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    /** Slot of the i-th oldest (leftmost) entity. */
+    int slot(int i) {
+        return (head + i) & mask;
+    }
+
+    /** Slot of the newest (rightmost) entity; only valid when not empty. */
+    int lastSlot() {
+        return (head + count - 1) & mask;
+    }
+
+    /** Appends an entity and returns its slot, or -1 if the ring is full. */
+    int add(int x, int y, int size, int type) {
+        if (count > mask) return -1;
+        int s = (head + count) & mask;
+        this.x[s] = x;
+        this.prevX[s] = x;
+        this.y[s] = y;
+        this.size[s] = size;
+        this.type[s] = type;
+        this.coinY[s] = -1;
+        this.flags[s] = 0;
+        count++;
+        return s;
+    }
+
+    void removeFirst() {
+        if (count == 0) return;
+        head = (head + 1) & mask;
+        count--;
+    }
+
+    void clear() {
+        head = 0;
+        count = 0;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.soarandsorcery;
+
+import java.io.IOException;
+
+/**
+ * Per-frame timings of one session: how long stepping the world and drawing took,
+ * and how far apart frames landed. Frames that arrive more than one and a half
+ * periods after the previous one count as jank, and every whole period skipped on
+ * the way counts as a missed frame. Everything lives in fixed histograms and
+ * counters, so recording a frame allocates nothing.
+ */
+public final class FrameStats {
+
+    private final long periodNanos;
+
+    private final TimingHistogram update = new TimingHistogram();
+    private final TimingHistogram draw = new TimingHistogram();
+    private final TimingHistogram interval = new TimingHistogram();
+
+    private long lastFrameNanos = -1;
+    private long frames;
+    private long jankFrames;
+    private long missedFrames;
+
+    /** @param periodNanos time between frames the display (or the frame timer) is paced at */
+    public FrameStats(long periodNanos) {
+        if (periodNanos <= 0) throw new IllegalArgumentException("periodNanos must be positive");
+        this.periodNanos = periodNanos;
+    }
+
+    /** Records one frame drawn for {@code frameTimeNanos}. */
+    public void onFrame(long frameTimeNanos, long updateNanos, long drawNanos) {
+        frames++;
+        update.record(updateNanos);
+        draw.record(drawNanos);
+
+        if (lastFrameNanos >= 0) {
+            long gap = frameTimeNanos - lastFrameNanos;
+            interval.record(gap);
+            if (gap * 2 > periodNanos * 3) jankFrames++;
+            long skipped = (gap + periodNanos / 2) / periodNanos - 1;
+            if (skipped > 0) missedFrames += skipped;
+        }
+        lastFrameNanos = frameTimeNanos;
+    }
+
+    /**
+     * The next frame does not follow the last one, e.g. after a pause or between runs,
+     * so the time in between is not counted as an interval.
+     */
+    public void breakSequence() {
+        lastFrameNanos = -1;
+    }
+
+    public long getPeriodNanos() { return periodNanos; }
+    public long getFrames() { return frames; }
+    public long getJankFrames() { return jankFrames; }
+    public long getMissedFrames() { return missedFrames; }
+    public TimingHistogram update() { return update; }
+    public TimingHistogram draw() { return draw; }
+    public TimingHistogram interval() { return interval; }
+
+    public void clear() {
+        update.clear();
+        draw.clear();
+        interval.clear();
+        lastFrameNanos = -1;
+        frames = 0;
+        jankFrames = 0;
+        missedFrames = 0;
+    }
+
+    /** Summary lines, then every histogram's buckets, in a form that loads into a spreadsheet. */
+    public void writeReport(Appendable out) throws IOException {
+        out.append("period_us,").append(Long.toString(periodNanos / 1000)).append('\n');
+        out.append("frames,").append(Long.toString(frames)).append('\n');
+        out.append("jank,").append(Long.toString(jankFrames)).append('\n');
+        out.append("missed,").append(Long.toString(missedFrames)).append('\n');
+        out.append("histogram,count,mean_us,p50_us,p90_us,p99_us,max_us\n");
+        summary(out, "update", update);
+        summary(out, "draw", draw);
+        summary(out, "interval", interval);
+        buckets(out, "update", update);
+        buckets(out, "draw", draw);
+        buckets(out, "interval", interval);
+    }
+
+    private static void summary(Appendable out, String name, TimingHistogram h) throws IOException {
+        out.append(name)
+                .append(',').append(Long.toString(h.count()))
+                .append(',').append(Long.toString(h.mean() / 1000))
+                .append(',').append(Long.toString(h.percentile(0.5) / 1000))
+                .append(',').append(Long.toString(h.percentile(0.9) / 1000))
+                .append(',').append(Long.toString(h.percentile(0.99) / 1000))
+                .append(',').append(Long.toString(h.max() / 1000))
+                .append('\n');
+    }
+
+    private static void buckets(Appendable out, String name, TimingHistogram h) throws IOException {
+        out.append('\n').append(name).append(" from_us,count\n");
+        h.writeTo(out);
+    }
+}
@@ -0,0 +1,593 @@
+package com.example.soarandsorcery;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+/**
+ * Pure-Java simulation of a run: knight, castles, coin and score.
+ *
+ * The world advances in fixed ticks of {@link #TICK_NANOS} no matter how often
+ * the renderer calls {@link #advance(long)}, so a slow or stalled frame never
+ * changes the gameplay. Positions for drawing are interpolated between the
+ * previous and current tick. Nothing in here touches Android classes, which
+ * keeps the rules runnable in plain JVM unit tests.
+ *
+ * Castles and pickups live in {@link EntityRing}s: as many as the screen needs,
+ * spawned on the right and retired on the left, with no allocation while playing.
+ * Index 0 of the castle and pickup getters is always the leftmost one. Gaps and
+ * coins come from a {@link CourseGenerator} seeded on every reset, which can lay
+ * the course out ahead of time on another thread.
+ *
+ * Taps arrive through {@link #queueFlap(long)} with the time they happened and
+ * take effect on the tick that time falls in, however the frames are spaced; the
+ * delay until a frame shows them is kept as the input latency. The run seed and
+ * the ticks that flapped are all a {@link Replay} needs to play a run again.
+ */
+public class GameWorld {
+
+    // One tick is the old 40 ms redraw delay, so the tuning below is unchanged.
+    public static final long TICK_NANOS = 40_000_000L;
+    private static final int MAX_TICKS_PER_ADVANCE = 5;
+    private static final int MAX_CASTLES = 16;
+    private static final int MAX_PICKUPS = 16;
+    private static final int MAX_QUEUED_FLAPS = 64;
+
+    public static final int PICKUP_COIN = 0;
+    private static final int COIN_POINTS = 5;
+    private static final int MILESTONE_POINTS = 10;
+
+    /** What ended the run. */
+    public enum DeathCause { NONE, TOP_CASTLE, BOTTOM_CASTLE, CEILING, FLOOR }
+
+    private final Random random;
+    private Difficulty difficulty = Difficulty.DEFAULT;
+
+    private int canvasWidth, canvasHeight;
+    private int knightWidth, knightHeight;
+    private int castleWidth;
+    private int coinWidth, coinHeight;
+    private CollisionMask knightMask, coinMask;
+
+    private int knightX, knightY, prevKnightY;
+
+    private ParticleSystem particles;
+
+    private int gap;
+    private CourseGenerator course = new CourseGenerator(null);
+
+    private int gravity = 3;
+    private int velocity = 0;
+    private int castleVelocity = 8;
+    private int flapVelocity = -40;
+
+    private final EntityRing castles = new EntityRing(MAX_CASTLES);
+    private final EntityRing pickups = new EntityRing(MAX_PICKUPS);
+    private int tubeSpacing;
+
+    private int score = 0;
+    private long tick = 0;
+    private long runSeed;
+    private int[] flapTicks = new int[1024];
+    private int flapCount = 0;
+
+    private boolean running = false;
+    private boolean gameOver = false;
+    private DeathCause deathCause = DeathCause.NONE;
+    private long deathTick = -1;
+
+    private long lastFrameNanos = -1;
+    private long accumulator = 0;
+    private float alpha = 0f;
+
+    // Written by the UI thread, read by whichever thread advances the world.
+    private final InputQueue inputs = new InputQueue(MAX_QUEUED_FLAPS);
+    private long lastInputLatencyNanos = -1;
+    private long maxInputLatencyNanos = -1;
+    private long totalInputLatencyNanos = 0;
+    private int inputLatencyCount = 0;
+
+    public GameWorld() {
+        this(new Random());
+    }
+
+    public GameWorld(Random random) {
+        this.random = random;
+    }
+
+    /** Restarts the castle and coin sequence; call before {@link #reset()} to replay a run. */
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+    /**
+     * Lays the course out ahead of time on {@code executor} instead of on the tick
+     * loop's thread when a castle is due; null goes back to doing it inline. Takes
+     * effect with the next {@link #reset()}; a seed gives the same course either way.
+     */
+    public void setCourseExecutor(Executor executor) {
+        course = new CourseGenerator(executor);
+    }
+
+    /** Applies tuning knobs; takes effect with the next {@link #setDimensions} call. */
+    public void setDifficulty(Difficulty difficulty) {
+        this.difficulty = difficulty;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public void setDimensions(int canvasWidth, int canvasHeight,
+                              int knightWidth, int knightHeight,
+                              int castleWidth,
+                              int coinWidth, int coinHeight) {
+        this.canvasWidth = canvasWidth;
+        this.canvasHeight = canvasHeight;
+        this.knightWidth = knightWidth;
+        this.knightHeight = knightHeight;
+        this.castleWidth = castleWidth;
+        this.coinWidth = coinWidth;
+        this.coinHeight = coinHeight;
+
+        gap = canvasHeight / difficulty.gapDivisor;
+        gravity = difficulty.gravity;
+        castleVelocity = difficulty.castleVelocity;
+        flapVelocity = difficulty.flapVelocity;
+
+        tubeSpacing = canvasWidth / 2 + castleWidth;
+    }
+
+    /**
+     * Solid pixels of the knight and coin at their current sizes, or null to collide
+     * with whole rectangles. Call after {@link #setDimensions}.
+     */
+    public void setCollisionMasks(CollisionMask knight, CollisionMask coin) {
+        if (knight != null && (knight.width() != knightWidth || knight.height() != knightHeight)) {
+            throw new IllegalArgumentException("Knight mask is " + knight.width() + "x" + knight.height()
+                    + ", knight is " + knightWidth + "x" + knightHeight);
+        }
+        if (coin != null && (coin.width() != coinWidth || coin.height() != coinHeight)) {
+            throw new IllegalArgumentException("Coin mask is " + coin.width() + "x" + coin.height()
+                    + ", coin is " + coinWidth + "x" + coinHeight);
+        }
+        knightMask = knight;
+        coinMask = coin;
+    }
+
+    /**
+     * Sparks to emit on coin pickups, score milestones and the crash, or null for none,
+     * as in headless runs. They step with the world's ticks, and after a crash
+     * {@link #advance(long)} keeps stepping them until the last one is gone.
+     */
+    public void setParticles(ParticleSystem particles) {
+        this.particles = particles;
+    }
+
+    /** Starts a new run on a course drawn from this world's random source. */
+    public void reset() {
+        reset(random.nextLong());
+    }
+
+    /** Starts a new run on the course of {@code runSeed}, as a replay does. */
+    public void reset(long runSeed) {
+        this.runSeed = runSeed;
+        knightX = canvasWidth / 4;
+        knightY = canvasHeight / 2;
+        prevKnightY = knightY;
+        velocity = 0;
+        score = 0;
+        tick = 0;
+        flapCount = 0;
+
+        gap = canvasHeight / difficulty.gapDivisor;
+        course.restart(runSeed, difficulty, canvasWidth, canvasHeight,
+                knightX, knightY, knightWidth, knightHeight, castleWidth, tubeSpacing, coinHeight);
+
+        castles.clear();
+        pickups.clear();
+        if (particles != null) {
+            particles.clear();
+            particles.setGravity(gravity / 2f);
+        }
+        spawnCastle(canvasWidth);
+        fillCastles();
+
+        running = false;
+        gameOver = false;
+        deathCause = DeathCause.NONE;
+        deathTick = -1;
+        inputs.clear();
+        lastInputLatencyNanos = -1;
+        maxInputLatencyNanos = -1;
+        totalInputLatencyNanos = 0;
+        inputLatencyCount = 0;
+        resetClock();
+    }
+
+    public void start() {
+        running = true;
+        gameOver = false;
+        resetClock();
+    }
+
+    /** Stops ticking without ending the run; {@link #start()} carries on from here. */
+    public void pause() {
+        running = false;
+        inputs.clear();
+        resetClock();
+    }
+
+    /** Forgets the last frame time, so the next advance does not catch up on a pause. */
+    public void resetClock() {
+        lastFrameNanos = -1;
+        accumulator = 0;
+        alpha = 0f;
+    }
+
+    public void flap() {
+        if (running) {
+            velocity = flapVelocity;
+            recordFlap();
+        }
+    }
+
+    // A second tap on the same tick changes nothing, so it is not recorded.
+    private void recordFlap() {
+        if (flapCount > 0 && flapTicks[flapCount - 1] == tick) return;
+        if (flapCount == flapTicks.length) flapTicks = Arrays.copyOf(flapTicks, flapCount * 2);
+        flapTicks[flapCount++] = (int) tick;
+    }
+
+    /**
+     * Queues a tap that happened at {@code eventTimeNanos}, on the same clock as the
+     * frame times given to {@link #advance(long)}. Needs no lock: one thread may
+     * queue taps while another advances the world. Taps while not running are dropped.
+     */
+    public void queueFlap(long eventTimeNanos) {
+        inputs.offer(eventTimeNanos);
+    }
+
+    /**
+     * Runs as many whole ticks as fit into the time since the previous call and
+     * returns the interpolation factor between the last two ticks.
+     */
+    public float advance(long frameTimeNanos) {
+        if (!running) inputs.clear();
+        if (!(running || sparksFlying()) || lastFrameNanos < 0) {
+            lastFrameNanos = frameTimeNanos;
+            accumulator = 0;
+            alpha = running ? 0f : 1f;
+            updateParticleAlpha();
+            return alpha;
+        }
+
+        accumulator += frameTimeNanos - lastFrameNanos;
+        lastFrameNanos = frameTimeNanos;
+
+        // A long stall drops time instead of fast-forwarding through it.
+        if (accumulator > MAX_TICKS_PER_ADVANCE * TICK_NANOS) {
+            accumulator = MAX_TICKS_PER_ADVANCE * TICK_NANOS;
+        }
+
+        // After a crash the world stands still, but its sparks fly on at the same rate.
+        while (accumulator >= TICK_NANOS && (running || sparksFlying())) {
+            if (running) {
+                applyQueuedFlaps(frameTimeNanos - accumulator + TICK_NANOS, frameTimeNanos);
+                tick();
+            } else {
+                particles.tick();
+            }
+            accumulator -= TICK_NANOS;
+        }
+
+        alpha = running ? accumulator / (float) TICK_NANOS : 1f;
+        updateParticleAlpha();
+        return alpha;
+    }
+
+    private boolean sparksFlying() {
+        return gameOver && particles != null && particles.count() > 0;
+    }
+
+    private void updateParticleAlpha() {
+        if (particles == null) return;
+        particles.setAlpha(running || sparksFlying() ? accumulator / (float) TICK_NANOS : 1f);
+    }
+
+    /*
+     * Taps up to the end of the coming tick act at its start, as a direct flap()
+     * just before it would. Taps older than that, from frames dropped by the stall
+     * clamp, act on the first tick there is. This frame is the first to show them.
+     */
+    private void applyQueuedFlaps(long tickEndNanos, long frameTimeNanos) {
+        while (!inputs.isEmpty() && inputs.peek() <= tickEndNanos) {
+            long latency = frameTimeNanos - inputs.peek();
+            inputs.remove();
+            flap();
+
+            lastInputLatencyNanos = latency;
+            maxInputLatencyNanos = Math.max(maxInputLatencyNanos, latency);
+            totalInputLatencyNanos += latency;
+            inputLatencyCount++;
+        }
+    }
+
+    public void tick() {
+        if (!running) return;
+
+        // Before this tick's bursts, so new sparks start where they were made.
+        if (particles != null) particles.tick();
+        prevKnightY = knightY;
+
+        moveTubes();
+        moveCoins();
+
+        velocity += gravity;
+        knightY += velocity;
+
+        checkCollision();
+        tick++;
+    }
+
+    private void moveTubes() {
+        EntityRing c = castles;
+        for (int i = 0, n = c.count(); i < n; i++) {
+            int s = c.slot(i);
+            c.prevX[s] = c.x[s];
+            c.x[s] -= castleVelocity;
+
+            if ((c.flags[s] & EntityRing.FLAG_PASSED) == 0 && c.x[s] + castleWidth < knightX) {
+                c.flags[s] |= EntityRing.FLAG_PASSED;
+                addScore(1);
+
+                if (c.coinY[s] >= 0) {
+                    spawnCoin(c.coinY[s]);
+                }
+            }
+        }
+
+        while (!c.isEmpty() && c.x[c.slot(0)] + castleWidth < 0) {
+            c.removeFirst();
+        }
+        fillCastles();
+    }
+
+    // Keeps one castle waiting past the right edge, however wide the screen is.
+    private void fillCastles() {
+        while (castles.isEmpty() || castles.x[castles.lastSlot()] <= canvasWidth) {
+            int x = castles.isEmpty() ? canvasWidth : castles.x[castles.lastSlot()] + tubeSpacing;
+            if (spawnCastle(x) < 0) break;
+        }
+    }
+
+    private int spawnCastle(int x) {
+        if (castles.count() == castles.capacity()) return -1;
+        course.advance();
+        gap = course.gap();
+        int s = castles.add(x, course.gapTop(), gap, 0);
+        castles.coinY[s] = course.coinY();
+        return s;
+    }
+
+    // Retires the leftmost castle and spawns the next one; what moveTubes does once a castle leaves.
+    void recycleCastle() {
+        castles.removeFirst();
+        spawnCastle(castles.isEmpty() ? canvasWidth : castles.x[castles.lastSlot()] + tubeSpacing);
+    }
+
+    private void moveCoins() {
+        EntityRing p = pickups;
+        for (int i = 0, n = p.count(); i < n; i++) {
+            int s = p.slot(i);
+            p.prevX[s] = p.x[s];
+            p.x[s] -= castleVelocity;
+        }
+
+        while (!p.isEmpty() && p.x[p.slot(0)] + coinWidth < 0) {
+            p.removeFirst();
+        }
+    }
+
+    private void spawnCoin(int y) {
+        int x = castles.x[castles.lastSlot()] + (tubeSpacing / 2);
+        pickups.add(x, y, 0, PICKUP_COIN);
+    }
+
+    /*
+     * Sweeps the knight's move this tick against castles, coins and the screen
+     * edges, relative to each entity's own move, and ends the run at the earliest
+     * hit; coins touched before that moment still count. Entities are in x order,
+     * so the scan skips those behind the knight and stops at the first one past it;
+     * the time of impact is only worked out when the knight's swept span reaches
+     * above the gap, below it or into a coin. With a knight mask, every box hit is
+     * then checked pixel by pixel over the time the boxes overlap.
+     * Package-private, like recycleCastle, so the benchmarks can time it on its own.
+     */
+    void checkCollision() {
+        int dy = knightY - prevKnightY;
+        int knightRight = knightX + knightWidth;
+        int sweptTop = Math.min(prevKnightY, knightY);
+        int sweptBottom = Math.max(prevKnightY, knightY) + knightHeight;
+        int reach = 2 * canvasHeight;   // castle halves run well past the screen edges
+        float hit = Sweep.NO_HIT;
+        DeathCause cause = DeathCause.NONE;
+
+        EntityRing c = castles;
+        for (int i = 0, n = c.count(); i < n; i++) {
+            int s = c.slot(i);
+            if (c.x[s] >= knightRight) break;
+            if (c.prevX[s] + castleWidth <= knightX) continue;
+
+            int dx = c.prevX[s] - c.x[s];
+            if (sweptTop < c.y[s]) {
+                float top = narrowPhase(dx, dy, c.prevX[s], c.y[s] - reach, castleWidth, reach, null);
+                if (top < hit) {
+                    hit = top;
+                    cause = DeathCause.TOP_CASTLE;
+                }
+            }
+            if (sweptBottom > c.y[s] + c.size[s]) {
+                float bottom = narrowPhase(dx, dy, c.prevX[s], c.y[s] + c.size[s], castleWidth, reach, null);
+                if (bottom < hit) {
+                    hit = bottom;
+                    cause = DeathCause.BOTTOM_CASTLE;
+                }
+            }
+        }
+
+        // Transparent rows at the top and bottom of the knight may leave the screen.
+        int solidTop = knightMask != null ? knightMask.firstRow() : 0;
+        int solidBottom = knightMask != null ? knightMask.lastRow() + 1 : knightHeight;
+        if (knightY + solidBottom > canvasHeight) {
+            int prevBottom = prevKnightY + solidBottom;
+            float t = prevBottom > canvasHeight ? 0f : (canvasHeight - prevBottom) / (float) dy;
+            if (t < hit) {
+                hit = t;
+                cause = DeathCause.FLOOR;
+            }
+        } else if (knightY + solidTop < 0) {
+            int prevTop = prevKnightY + solidTop;
+            float t = prevTop < 0 ? 0f : prevTop / (float) -dy;
+            if (t < hit) {
+                hit = t;
+                cause = DeathCause.CEILING;
+            }
+        }
+
+        collectCoins(dy, sweptTop, sweptBottom, hit);
+
+        if (cause != DeathCause.NONE) {
+            knightY = prevKnightY + Math.round(dy * hit);
+            triggerGameOver(cause);
+        }
+    }
+
+    private void collectCoins(int dy, int sweptTop, int sweptBottom, float before) {
+        int knightRight = knightX + knightWidth;
+        EntityRing p = pickups;
+        for (int i = 0, n = p.count(); i < n; i++) {
+            int s = p.slot(i);
+            if (p.x[s] >= knightRight) break;
+            if ((p.flags[s] & EntityRing.FLAG_COLLECTED) != 0 || p.prevX[s] + coinWidth <= knightX) continue;
+            if (sweptBottom <= p.y[s] || sweptTop >= p.y[s] + coinHeight) continue;
+
+            float t = narrowPhase(p.prevX[s] - p.x[s], dy, p.prevX[s], p.y[s], coinWidth, coinHeight, coinMask);
+            if (t <= before && t != Sweep.NO_HIT) {
+                p.flags[s] |= EntityRing.FLAG_COLLECTED;
+                addScore(COIN_POINTS);
+                if (particles != null) {
+                    particles.burst(p.x[s] + coinWidth / 2f, p.y[s] + coinHeight / 2f, 24,
+                            coinWidth / 6f, -castleVelocity, 0, ParticleSystem.GOLD, 12);
+                }
+            }
+        }
+    }
+
+    /*
+     * Time of impact of the knight, moving by (dx, dy) relative to the box at (bx, by),
+     * or NO_HIT. Without a knight mask that is the box sweep. With one, the span the
+     * boxes overlap is walked one pixel of relative motion at a time until the masks
+     * meet; {@code target} null means the box is solid.
+     */
+    private float narrowPhase(int dx, int dy, int bx, int by, int bw, int bh, CollisionMask target) {
+        float enter = Sweep.timeOfImpact(knightX, prevKnightY, knightWidth, knightHeight, dx, dy, bx, by, bw, bh);
+        if (knightMask == null || enter == Sweep.NO_HIT) return enter;
+
+        float exit = Sweep.timeOfExit(knightX, prevKnightY, knightWidth, knightHeight, dx, dy, bx, by, bw, bh);
+        int steps = Math.max(1, (int) Math.ceil(Math.max(Math.abs(dx), Math.abs(dy)) * (exit - enter)));
+        for (int k = 0; k <= steps; k++) {
+            float t = enter + (exit - enter) * k / steps;
+            int ox = bx - (knightX + Math.round(dx * t));
+            int oy = by - (prevKnightY + Math.round(dy * t));
+            boolean touching = target == null
+                    ? knightMask.anyInRect(ox, oy, ox + bw, oy + bh)
+                    : knightMask.overlaps(target, ox, oy);
+            if (touching) return t;
+        }
+        return Sweep.NO_HIT;
+    }
+
+    private void addScore(int points) {
+        int before = score;
+        score += points;
+        if (particles != null && score / MILESTONE_POINTS > before / MILESTONE_POINTS) {
+            particles.burst(knightX + knightWidth / 2f, knightY + knightHeight / 2f, 60,
+                    knightWidth / 5f, 0, -knightHeight / 10f, ParticleSystem.STAR, 15);
+        }
+    }
+
+    private void triggerGameOver(DeathCause cause) {
+        running = false;
+        gameOver = true;
+        deathCause = cause;
+        deathTick = tick;
+        if (particles != null) {
+            float cx = knightX + knightWidth / 2f, cy = knightY + knightHeight / 2f;
+            particles.burst(cx, cy, 48, knightWidth / 6f, 0, -knightHeight / 12f, ParticleSystem.EMBER, 18);
+            particles.burst(cx, cy, 24, knightWidth / 12f, 0, -knightHeight / 8f, ParticleSystem.SMOKE, 24);
+        }
+    }
+
+    private static float lerp(int from, int to, float t) {
+        return from + (to - from) * t;
+    }
+
+    // ---------- RENDER STATE ----------
+    public float getAlpha() { return alpha; }
+
+    public int getKnightX() { return knightX; }
+    public int getKnightWidth() { return knightWidth; }
+    public int getKnightHeight() { return knightHeight; }
+    public int getCastleWidth() { return castleWidth; }
+    public int getCanvasWidth() { return canvasWidth; }
+    public int getCanvasHeight() { return canvasHeight; }
+    public int getCoinWidth() { return coinWidth; }
+    public int getCoinHeight() { return coinHeight; }
+    public float getKnightRenderY() { return lerp(prevKnightY, knightY, alpha); }
+    /** Knight height at another world's interpolation factor, for ghosts that tick in step with it. */
+    public float getKnightRenderY(float alpha) { return lerp(prevKnightY, knightY, alpha); }
+    /** How far the course has scrolled this run, interpolated like the castles; scenery follows it. */
+    public float getScrollRenderX() { return (tick - 1 + alpha) * castleVelocity; }
+
+    public int getTubeCount() { return castles.count(); }
+    public float getTubeRenderX(int i) { int s = castles.slot(i); return lerp(castles.prevX[s], castles.x[s], alpha); }
+    public int getGapTop(int i) { return castles.y[castles.slot(i)]; }
+    /** Gap height of castle i; it is fixed when the castle spawns. */
+    public int getGap(int i) { return castles.size[castles.slot(i)]; }
+    /** Gap height of the newest castle. */
+    public int getGap() { return gap; }
+
+    public int getPickupCount() { return pickups.count(); }
+    /** Collected pickups stay in the list until they scroll off, but are not drawn. */
+    public boolean isPickupActive(int i) { return (pickups.flags[pickups.slot(i)] & EntityRing.FLAG_COLLECTED) == 0; }
+    public int getPickupType(int i) { return pickups.type[pickups.slot(i)]; }
+    public float getPickupRenderX(int i) { int s = pickups.slot(i); return lerp(pickups.prevX[s], pickups.x[s], alpha); }
+    public int getPickupY(int i) { return pickups.y[pickups.slot(i)]; }
+
+    // ---------- SIMULATION STATE ----------
+    public int getKnightY() { return knightY; }
+    public int getVelocity() { return velocity; }
+    public int getTubeX(int i) { return castles.x[castles.slot(i)]; }
+    public int getPickupX(int i) { return pickups.x[pickups.slot(i)]; }
+    public int getScore() { return score; }
+    public long getTick() { return tick; }
+    /** Seed of the current run's course; {@link #reset(long)} with it plays the same course. */
+    public long getRunSeed() { return runSeed; }
+    /** Ticks this run flapped on, ascending; only the first {@link #getFlapCount()} are used. */
+    int[] flapTicks() { return flapTicks; }
+    public int getFlapCount() { return flapCount; }
+    public boolean isRunning() { return running; }
+    public boolean isGameOver() { return gameOver; }
+    public DeathCause getDeathCause() { return deathCause; }
+    /** Index of the tick the run ended on, or -1 while it is still going. */
+    public long getDeathTick() { return deathTick; }
+
+    // ---------- INPUT LATENCY ----------
+    // From a queued tap's time to the frame time of the first frame showing it, over this run; -1 before any.
+    public long getLastInputLatencyNanos() { return lastInputLatencyNanos; }
+    public long getMaxInputLatencyNanos() { return maxInputLatencyNanos; }
+    public long getMeanInputLatencyNanos() { return inputLatencyCount == 0 ? -1 : totalInputLatencyNanos / inputLatencyCount; }
+    /** Queued taps that took effect this run. */
+    public int getTapCount() { return inputLatencyCount; }
+}
@@ -0,0 +1,66 @@
+package com.example.soarandsorcery;
+
+import java.io.IOException;
+
+/**
+ * A recorded run flown again next to the live one. The ghost has a world of its
+ * own on the replay's course and taps exactly where the recording did; the live
+ * world's tick count drives it, so it costs at most one extra tick per live tick
+ * and is drawn at the live world's interpolation factor.
+ */
+public final class Ghost {
+
+    private final GameWorld world;
+    private final ReplayReader replay;
+    private int nextFlap;
+
+    /**
+     * @param world a world with the same layout and difficulty the replay was recorded with
+     * @throws IllegalArgumentException if it has not
+     */
+    public Ghost(ReplayReader replay, GameWorld world) throws IOException {
+        if (!replay.fits(world)) {
+            throw new IllegalArgumentException("Replay was recorded on another layout or difficulty");
+        }
+        this.world = world;
+        this.replay = replay;
+        world.reset(replay.seed);
+        world.start();
+        nextFlap = replay.nextFlapTick();
+    }
+
+    /** Plays the recording up to {@code tick}; call after every live advance. */
+    public void syncTo(long tick) {
+        while (world.isRunning() && world.getTick() < tick) {
+            if (world.getTick() == nextFlap) {
+                world.flap();
+                try {
+                    nextFlap = replay.nextFlapTick();
+                } catch (IOException e) {
+                    // A replay cut short on disk just stops flapping; the ghost falls.
+                    nextFlap = -1;
+                }
+            }
+            world.tick();
+        }
+    }
+
+    /** False once the recorded run has crashed. */
+    public boolean isFlying() {
+        return world.isRunning();
+    }
+
+    public int getScore() { return world.getScore(); }
+    public int getKnightX() { return world.getKnightX(); }
+    public int getKnightY() { return world.getKnightY(); }
+    public float getKnightRenderY(float alpha) { return world.getKnightRenderY(alpha); }
+
+    /** Closes the replay's stream. */
+    public void close() {
+        try {
+            replay.close();
+        } catch (IOException ignored) {
+            // nothing left to read from it anyway
+        }
+    }
+}
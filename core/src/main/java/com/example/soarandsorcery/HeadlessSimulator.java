@@ -0,0 +1,105 @@
+package com.example.soarandsorcery;
+
+import java.util.Random;
+
+/**
+ * Runs {@link GameWorld} without a Canvas or View: a seed fixes every castle gap and
+ * coin, and a script says on which ticks the player taps. The same seed and script
+ * always give the same run, so balance changes can be checked in unit tests.
+ */
+public final class HeadlessSimulator {
+
+    // Reference layout: a 1080 x 2280 phone with the sprite sizes GameRenderer picks for it.
+    public static final int REFERENCE_WIDTH = 1080;
+    public static final int REFERENCE_HEIGHT = 2280;
+
+    public static final class Result {
+        public final int score;
+        /** Tick the run ended on, or -1 if it survived to the tick limit. */
+        public final long deathTick;
+        public final GameWorld.DeathCause cause;
+        public final long ticks;
+
+        Result(int score, long deathTick, GameWorld.DeathCause cause, long ticks) {
+            this.score = score;
+            this.deathTick = deathTick;
+            this.cause = cause;
+            this.ticks = ticks;
+        }
+
+        @Override
+        public String toString() {
+            return "score=" + score + " deathTick=" + deathTick + " cause=" + cause;
+        }
+    }
+
+    /** Decides, before every tick, whether the player taps. */
+    public interface Pilot {
+        /** Called at the start of each run with that run's seed. */
+        void reset(long seed);
+
+        boolean shouldFlap(GameWorld world);
+    }
+
+    private final GameWorld world = new GameWorld(new Random(0));
+
+    public HeadlessSimulator() {
+        this(REFERENCE_WIDTH, REFERENCE_HEIGHT);
+    }
+
+    public HeadlessSimulator(int canvasWidth, int canvasHeight) {
+        this(canvasWidth, canvasHeight, Difficulty.DEFAULT);
+    }
+
+    public HeadlessSimulator(int canvasWidth, int canvasHeight, Difficulty difficulty) {
+        world.setDifficulty(difficulty);
+        int knight = canvasWidth / 10;
+        int coin = canvasWidth / 15;
+        world.setDimensions(canvasWidth, canvasHeight, knight, knight, canvasWidth / 6, coin, coin);
+    }
+
+    /** The world being simulated, for callers that want to look at it between ticks. */
+    public GameWorld world() {
+        return world;
+    }
+
+    /**
+     * Plays one run. {@code flapTicks} must be ascending; a tap listed for tick n is
+     * applied just before tick n is simulated. Stops at death or after {@code maxTicks}.
+     */
+    public Result run(long seed, int[] flapTicks, long maxTicks) {
+        world.setSeed(seed);
+        world.reset();
+        world.start();
+
+        int nextFlap = 0;
+        while (world.isRunning() && world.getTick() < maxTicks) {
+            while (nextFlap < flapTicks.length && flapTicks[nextFlap] <= world.getTick()) {
+                if (flapTicks[nextFlap] == world.getTick()) {
+                    world.flap();
+                }
+                nextFlap++;
+            }
+            world.tick();
+        }
+
+        return new Result(world.getScore(), world.getDeathTick(), world.getDeathCause(), world.getTick());
+    }
+
+    /** Plays one run with taps chosen by {@code pilot}; stops at death or after {@code maxTicks}. */
+    public Result run(long seed, Pilot pilot, long maxTicks) {
+        world.setSeed(seed);
+        world.reset();
+        world.start();
+        pilot.reset(seed);
+
+        while (world.isRunning() && world.getTick() < maxTicks) {
+            if (pilot.shouldFlap(world)) {
+                world.flap();
+            }
+            world.tick();
+        }
+
+        return new Result(world.getScore(), world.getDeathTick(), world.getDeathCause(), world.getTick());
+    }
+}
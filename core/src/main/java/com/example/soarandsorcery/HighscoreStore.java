@@ -0,0 +1,389 @@
+package com.example.soarandsorcery;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Every finished run on this device, and the best {@code keep} of them, as two
+ * files of fixed-size records:
+ *
+ * <pre>
+ * header   "SH" version kind            4 bytes, kind 'T' (top) or 'H' (history);
+ *                                        {@link UploadQueue} uses 'Q'
+ * record   score, millis, name          4 + 8 + 4 bytes, big-endian, name ASCII
+ *                                        padded with zeros
+ * </pre>
+ *
+ * The top list is read once by {@link #load()} and then kept in memory, best first;
+ * a score below its cutoff is turned away without touching it. Disk writes happen
+ * afterwards on {@code writer}: runs are appended to the history (a torn last record
+ * is ignored on reading), and a changed top list is written to a temporary file
+ * and renamed over the old one, so a crash leaves either list whole.
+ *
+ * Every run's score also goes into a {@link ScoreIndex}, so where a run ranks among
+ * all of them is a tree lookup. The runs already on disk are counted in on the
+ * writer after {@link #load()}; {@link #isIndexed()} tells when that is done.
+ */
+public final class HighscoreStore {
+
+    static final int MAGIC_0 = 'S';
+    static final int MAGIC_1 = 'H';
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 4;
+    static final int NAME_BYTES = 4;
+    static final int RECORD_BYTES = 4 + 8 + NAME_BYTES;
+
+    private static final String TOP_FILE = "top.bin";
+    private static final String HISTORY_FILE = "history.bin";
+
+    private final File dir;
+    private final int keep;
+    private final Executor writer;
+
+    // Guarded by this. Best first; among equal scores the earlier run first.
+    private final int[] topScores;
+    private final long[] topMillis;
+    private final String[] topNames;
+    private int topCount;
+    private long runs;
+    private final ScoreIndex index = new ScoreIndex();
+    private boolean indexed;
+
+    // Guarded by this: what the next flush has to write.
+    private final ByteArrayOutputStream pendingRuns = new ByteArrayOutputStream();
+    private boolean topDirty;
+    private boolean flushScheduled;
+
+    // Held while writing, so a flush on the writer and one from flush() never interleave.
+    private final Object io = new Object();
+
+    private final Runnable flushTask = () -> {
+        try {
+            flush();
+        } catch (IOException e) {
+            // Kept pending; the next run's flush tries again.
+        }
+    };
+
+    public HighscoreStore(File dir, int keep, Executor writer) {
+        if (keep <= 0) throw new IllegalArgumentException("keep must be positive");
+        this.dir = dir;
+        this.keep = keep;
+        this.writer = writer;
+        topScores = new int[keep];
+        topMillis = new long[keep];
+        topNames = new String[keep];
+    }
+
+    /**
+     * Reads the top list and counts the history. A missing or damaged top list is
+     * rebuilt from the history and written again.
+     */
+    public void load() throws IOException {
+        boolean rebuilt;
+        long onDisk;
+        synchronized (this) {
+            rebuilt = readTop();
+            if (rebuilt) flushScheduled = true;
+            onDisk = runs;
+            indexed = onDisk == 0;
+        }
+        if (rebuilt) writer.execute(flushTask);
+        if (onDisk > 0) writer.execute(() -> indexHistory(onDisk));
+    }
+
+    /*
+     * Counts the first {@code onDisk} runs of the history, the ones that were there
+     * at load; later ones went into the index as they were added. The file is read
+     * into an index of its own without holding the store, then merged under it.
+     */
+    private void indexHistory(long onDisk) {
+        ScoreIndex onFile = new ScoreIndex();
+        try {
+            synchronized (io) {
+                readRecords(new File(dir, HISTORY_FILE), 'H', onDisk, (name, score, millis) -> onFile.add(score));
+            }
+        } catch (IOException e) {
+            // Ranks then cover what could be read.
+        }
+        synchronized (this) {
+            index.addAll(onFile);
+            indexed = true;
+        }
+    }
+
+    // Returns true when the top list had to be rebuilt and now needs writing.
+    private boolean readTop() throws IOException {
+        File history = new File(dir, HISTORY_FILE);
+        runs = history.isFile() ? Math.max(0, (history.length() - HEADER_BYTES) / RECORD_BYTES) : 0;
+
+        topCount = 0;
+        File top = new File(dir, TOP_FILE);
+        if (top.isFile()) {
+            try {
+                readRecords(top, 'T', Long.MAX_VALUE, (name, score, millis) -> insert(score, millis, name));
+                return false;
+            } catch (IOException e) {
+                topCount = 0;
+            }
+        }
+        if (runs > 0) {
+            readRecords(history, 'H', Long.MAX_VALUE, (name, score, millis) -> insert(score, millis, name));
+            topDirty = true;
+            return true;
+        }
+        return false;
+    }
+
+    /** Whether nothing was ever stored, e.g. to import older scores once. */
+    public synchronized boolean isEmpty() {
+        return runs == 0 && topCount == 0;
+    }
+
+    /** Records a run now; see {@link #add(String, int, long)}. */
+    public int add(String name, int score) {
+        return add(name, score, System.currentTimeMillis());
+    }
+
+    /**
+     * Records a finished run. Returns its place in the top list (0 is best), or -1
+     * when it did not make it, in which case only the history grows. Returns at once;
+     * the files are written on the writer.
+     */
+    public int add(String name, int score, long millis) {
+        int place = -1;
+        boolean schedule;
+        synchronized (this) {
+            runs++;
+            index.add(score);
+            writeRecord(pendingRuns, score, millis, name);
+            if (topCount < keep || score > topScores[topCount - 1]) {
+                place = insert(score, millis, name);
+                topDirty = true;
+            }
+            schedule = !flushScheduled;
+            flushScheduled = true;
+        }
+        // Outside the lock: an executor that runs it right here would take the io lock under ours.
+        if (schedule) writer.execute(flushTask);
+        return place;
+    }
+
+    // Binary search for the first entry ranked below score, then shifts the tail down one.
+    private int insert(int score, long millis, String name) {
+        int lo = 0, hi = topCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (topScores[mid] >= score) lo = mid + 1;
+            else hi = mid;
+        }
+        if (lo == keep) return -1;
+
+        int moved = Math.min(topCount, keep - 1) - lo;
+        System.arraycopy(topScores, lo, topScores, lo + 1, moved);
+        System.arraycopy(topMillis, lo, topMillis, lo + 1, moved);
+        System.arraycopy(topNames, lo, topNames, lo + 1, moved);
+        topScores[lo] = score;
+        topMillis[lo] = millis;
+        topNames[lo] = name;
+        if (topCount < keep) topCount++;
+        return lo;
+    }
+
+    /** The best runs, best first. */
+    public synchronized List<ScoreEntry> top() {
+        List<ScoreEntry> list = new ArrayList<>(topCount);
+        for (int i = 0; i < topCount; i++) list.add(new ScoreEntry(topNames[i], topScores[i], topMillis[i]));
+        return list;
+    }
+
+    /** Lowest score on a full top list, or -1 while it still has room. */
+    public synchronized int cutoff() {
+        return topCount < keep ? -1 : topScores[topCount - 1];
+    }
+
+    /** Whether the runs on disk at load are in the rank queries yet. */
+    public synchronized boolean isIndexed() {
+        return indexed;
+    }
+
+    /** Place {@code score} takes among every run, 1 for the best. */
+    public synchronized long rankOf(int score) {
+        return index.rankOf(score);
+    }
+
+    /** Percentage of all runs that scored less than {@code score}. */
+    public synchronized double percentile(int score) {
+        return index.percentile(score);
+    }
+
+    /** Runs that scored from {@code from} to {@code to}, both included. */
+    public synchronized long range(int from, int to) {
+        return index.range(from, to);
+    }
+
+    /** Runs recorded so far, written or not. */
+    public synchronized long runCount() {
+        return runs;
+    }
+
+    /**
+     * Writes whatever is pending on the calling thread. The writer does this by
+     * itself after every add; call it directly to be sure before the process may die.
+     */
+    public void flush() throws IOException {
+        synchronized (io) {
+            byte[] appended;
+            byte[] top = null;
+            synchronized (this) {
+                flushScheduled = false;
+                appended = pendingRuns.toByteArray();
+                pendingRuns.reset();
+                if (topDirty) {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_BYTES + topCount * RECORD_BYTES);
+                    writeHeader(bytes, 'T');
+                    for (int i = 0; i < topCount; i++) writeRecord(bytes, topScores[i], topMillis[i], topNames[i]);
+                    top = bytes.toByteArray();
+                    topDirty = false;
+                }
+            }
+
+            try {
+                if ((appended.length > 0 || top != null) && !dir.isDirectory() && !dir.mkdirs()) {
+                    throw new IOException("Cannot create " + dir);
+                }
+                if (appended.length > 0) appendHistory(appended);
+                appended = null;
+                if (top != null) replace(new File(dir, TOP_FILE), top);
+            } catch (IOException e) {
+                synchronized (this) {
+                    // Put back what did not make it, ahead of anything added since.
+                    if (appended != null) {
+                        byte[] later = pendingRuns.toByteArray();
+                        pendingRuns.reset();
+                        pendingRuns.write(appended, 0, appended.length);
+                        pendingRuns.write(later, 0, later.length);
+                    }
+                    if (top != null) topDirty = true;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void appendHistory(byte[] records) throws IOException {
+        File history = new File(dir, HISTORY_FILE);
+        long length = history.isFile() ? history.length() : 0;
+        try (FileOutputStream out = new FileOutputStream(history, true)) {
+            if (length < HEADER_BYTES) {
+                // New, or torn inside the header: start over rather than misread.
+                out.getChannel().truncate(0);
+                ByteArrayOutputStream header = new ByteArrayOutputStream(HEADER_BYTES);
+                writeHeader(header, 'H');
+                out.write(header.toByteArray());
+            } else if ((length - HEADER_BYTES) % RECORD_BYTES != 0) {
+                // A record torn by a crash; cut it so later records stay aligned.
+                out.getChannel().truncate(length - (length - HEADER_BYTES) % RECORD_BYTES);
+            }
+            out.write(records);
+            out.getFD().sync();
+        }
+    }
+
+    static void replace(File target, byte[] bytes) throws IOException {
+        File tmp = new File(target.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(bytes);
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(target)) {
+            tmp.delete();
+            throw new IOException("Cannot rename " + tmp + " to " + target);
+        }
+    }
+
+    /**
+     * Streams the history, oldest run first, to {@code visitor}; a torn last record
+     * is skipped. Runs still waiting for the writer are not included.
+     */
+    public void readHistory(RunVisitor visitor) throws IOException {
+        synchronized (io) {
+            readRecords(new File(dir, HISTORY_FILE), 'H', Long.MAX_VALUE, visitor);
+        }
+    }
+
+    static void readRecords(File file, char kind, long limit, RunVisitor visitor) throws IOException {
+        if (!file.isFile()) return;
+        long records = Math.min(limit, (file.length() - HEADER_BYTES) / RECORD_BYTES);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            readHeader(in, kind);
+            for (long i = 0; i < records; i++) {
+                int score = in.readInt();
+                long millis = in.readLong();
+                visitor.visit(readName(in), score, millis);
+            }
+        }
+    }
+
+    /** Receives one stored run. */
+    public interface RunVisitor {
+        void visit(String name, int score, long millis);
+    }
+
+    // ---------- RECORDS ----------
+    static void writeHeader(OutputStream out, char kind) {
+        try {
+            out.write(MAGIC_0);
+            out.write(MAGIC_1);
+            out.write(VERSION);
+            out.write(kind);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // only used on byte arrays
+        }
+    }
+
+    private static void readHeader(InputStream in, char kind) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readUnsignedByte() != MAGIC_0 || data.readUnsignedByte() != MAGIC_1) {
+            throw new IOException("Not a highscore file");
+        }
+        int version = data.readUnsignedByte();
+        if (version != VERSION) throw new IOException("Unknown highscore version " + version);
+        if (data.readUnsignedByte() != kind) throw new IOException("Highscore file of another kind");
+    }
+
+    static void writeRecord(ByteArrayOutputStream out, int score, long millis, String name) {
+        DataOutputStream data = new DataOutputStream(out);
+        try {
+            data.writeInt(score);
+            data.writeLong(millis);
+            for (int i = 0; i < NAME_BYTES; i++) {
+                char c = i < name.length() ? name.charAt(i) : 0;
+                data.writeByte(c == 0 || (c >= 0x20 && c < 0x7F) ? c : '?');
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // a byte array does not fail
+        }
+    }
+
+    private static String readName(DataInputStream in) throws IOException {
+        char[] chars = new char[NAME_BYTES];
+        int n = 0;
+        for (int i = 0; i < NAME_BYTES; i++) {
+            int b = in.readUnsignedByte();
+            if (b != 0) chars[n++] = (char) b;
+        }
+        return new String(chars, 0, n);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.soarandsorcery;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Flap timestamps on their way from the UI thread to the tick loop: the same
+ * lock-free single-producer/single-consumer ring as {@link SpscQueue}, holding
+ * primitive longs so a tap never allocates.
+ */
+final class InputQueue {
+
+    private final long[] times;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Capacity is rounded up to a power of two. */
+    InputQueue(int capacity) {
+        int n = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        times = new long[n];
+        mask = n - 1;
+    }
+
+    /** Producer only. Returns false, dropping the tap, if the queue is full. */
+    boolean offer(long timeNanos) {
+        long t = tail.get();
+        if (t - head.get() > mask) return false;
+        times[(int) t & mask] = timeNanos;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /** Consumer only. */
+    boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    /** Consumer only; the oldest time, only valid when not empty. */
+    long peek() {
+        return times[(int) head.get() & mask];
+    }
+
+    /** Consumer only; drops the oldest time. */
+    void remove() {
+        long h = head.get();
+        if (h != tail.get()) head.lazySet(h + 1);
+    }
+
+    /** Consumer only. */
+    void clear() {
+        head.lazySet(tail.get());
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.soarandsorcery;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * The world top list as last fetched, shared by everything that shows or checks
+ * it. A snapshot younger than the time to live is answered without asking the
+ * {@link WorldLeaderboard}; requests that come in while a fetch is under way wait
+ * for that one instead of starting their own. If a fetch fails, the last snapshot
+ * is answered however old it is. While someone {@link #listen}s, every live
+ * update becomes the snapshot.
+ *
+ * Scores are never taken off the board, so its cutoff only ever rises: a score
+ * that does not beat the cutoff of any full snapshot cannot qualify now either,
+ * which {@link #mayQualify(int)} answers without a round-trip.
+ */
+public final class LeaderboardCache {
+
+    private final WorldLeaderboard board;
+    private final int size;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    // Guarded by this.
+    private List<ScoreEntry> snapshot;
+    private long fetchedAt;
+    private boolean fetching;
+    private final List<WorldLeaderboard.Callback<List<ScoreEntry>>> waiting = new ArrayList<>();
+
+    public LeaderboardCache(WorldLeaderboard board, int size, long ttlNanos) {
+        this(board, size, ttlNanos, System::nanoTime);
+    }
+
+    /** {@code clock} reads nanoseconds, like {@link System#nanoTime()}. */
+    public LeaderboardCache(WorldLeaderboard board, int size, long ttlNanos, LongSupplier clock) {
+        if (size <= 0) throw new IllegalArgumentException("size must be positive");
+        this.board = board;
+        this.size = size;
+        this.ttlNanos = ttlNanos;
+        this.clock = clock;
+    }
+
+    /** The last snapshot, highest first, or null before the first fetch came back. */
+    public synchronized List<ScoreEntry> cached() {
+        return snapshot;
+    }
+
+    private boolean isFresh() {
+        return snapshot != null && clock.getAsLong() - fetchedAt < ttlNanos;
+    }
+
+    /** Answers the top list, from the snapshot while it is fresh. */
+    public void top(WorldLeaderboard.Callback<List<ScoreEntry>> callback) {
+        List<ScoreEntry> fresh = null;
+        boolean start = false;
+        synchronized (this) {
+            if (isFresh()) {
+                fresh = snapshot;
+            } else {
+                waiting.add(callback);
+                start = !fetching;
+                fetching = true;
+            }
+        }
+        if (fresh != null) {
+            callback.onResult(fresh);
+        } else if (start) {
+            fetch();
+        }
+    }
+
+    private void fetch() {
+        board.fetchTop(size, new WorldLeaderboard.Callback<List<ScoreEntry>>() {
+            @Override
+            public void onResult(List<ScoreEntry> result) {
+                List<ScoreEntry> top = Collections.unmodifiableList(new ArrayList<>(result));
+                List<WorldLeaderboard.Callback<List<ScoreEntry>>> callbacks;
+                synchronized (LeaderboardCache.this) {
+                    keep(top);
+                    callbacks = takeWaiting();
+                }
+                for (WorldLeaderboard.Callback<List<ScoreEntry>> c : callbacks) c.onResult(top);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                List<ScoreEntry> stale;
+                List<WorldLeaderboard.Callback<List<ScoreEntry>>> callbacks;
+                synchronized (LeaderboardCache.this) {
+                    stale = snapshot;
+                    callbacks = takeWaiting();
+                }
+                for (WorldLeaderboard.Callback<List<ScoreEntry>> c : callbacks) {
+                    if (stale != null) c.onResult(stale);
+                    else c.onError(e);
+                }
+            }
+        });
+    }
+
+    private void keep(List<ScoreEntry> top) {
+        snapshot = top;
+        fetchedAt = clock.getAsLong();
+    }
+
+    /**
+     * Follows the board live until the registration is removed: each update is
+     * kept as a fresh snapshot and then handed to {@code callback}.
+     */
+    public WorldLeaderboard.Registration listen(WorldLeaderboard.Callback<List<ScoreEntry>> callback) {
+        return board.listenTop(size, new WorldLeaderboard.Callback<List<ScoreEntry>>() {
+            @Override
+            public void onResult(List<ScoreEntry> result) {
+                List<ScoreEntry> top = Collections.unmodifiableList(new ArrayList<>(result));
+                synchronized (LeaderboardCache.this) {
+                    keep(top);
+                }
+                callback.onResult(top);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        });
+    }
+
+    private List<WorldLeaderboard.Callback<List<ScoreEntry>>> takeWaiting() {
+        List<WorldLeaderboard.Callback<List<ScoreEntry>>> callbacks = new ArrayList<>(waiting);
+        waiting.clear();
+        fetching = false;
+        return callbacks;
+    }
+
+    /**
+     * False when {@code score} cannot make the list: a full snapshot, however old,
+     * already has a cutoff at or above it. True means it might, as far as is known.
+     */
+    public synchronized boolean mayQualify(int score) {
+        return snapshot == null || snapshot.size() < size || score > snapshot.get(size - 1).score;
+    }
+
+    /** Merges runs the board just took into the snapshot, so it shows them before the next fetch. */
+    public synchronized void recordSubmitted(List<ScoreEntry> entries) {
+        if (snapshot == null) return;
+        for (ScoreEntry e : entries) snapshot = with(snapshot, e);
+    }
+
+    // The snapshot with a run the board just took; ties go after the runs already there.
+    private List<ScoreEntry> with(List<ScoreEntry> top, ScoreEntry entry) {
+        List<ScoreEntry> merged = new ArrayList<>(top.size() + 1);
+        int i = 0;
+        while (i < top.size() && top.get(i).score >= entry.score) merged.add(top.get(i++));
+        merged.add(entry);
+        while (i < top.size()) merged.add(top.get(i++));
+        if (merged.size() > size) merged.remove(merged.size() - 1);
+        return Collections.unmodifiableList(merged);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.soarandsorcery;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The on-device top 10, kept as a JSON array of {@code {"name", "score"}} objects.
+ * Where the string lives is up to the {@link Storage}; the app kept it in
+ * SharedPreferences, benchmarks and tests in memory. Superseded by
+ * {@link HighscoreStore}; the app now only reads it to import old scores.
+ */
+public final class LocalHighscores {
+
+    public static final int MAX_ENTRIES = 10;
+
+    /** Holds the serialized list. */
+    public interface Storage {
+        /** The last written value, or null if nothing was saved yet. */
+        String read();
+
+        void write(String value);
+    }
+
+    private final Storage storage;
+
+    public LocalHighscores(Storage storage) {
+        this.storage = storage;
+    }
+
+    public List<ScoreEntry> load() {
+        String json = storage.read();
+        List<ScoreEntry> list = new ArrayList<>();
+
+        if (json == null) return list;
+
+        try {
+            JSONArray arr = new JSONArray(json);
+            for (int i = 0; i < arr.length(); i++) {
+                JSONObject o = arr.getJSONObject(i);
+                list.add(new ScoreEntry(o.getString("name"), o.getInt("score")));
+            }
+        } catch (JSONException e) {
+            e.printStackTrace();
+        }
+
+        return list;
+    }
+
+    public void save(List<ScoreEntry> list) {
+        JSONArray arr = new JSONArray();
+
+        try {
+            for (ScoreEntry e : list) {
+                JSONObject o = new JSONObject();
+                o.put("name", e.name);
+                o.put("score", e.score);
+                arr.put(o);
+            }
+        } catch (JSONException e) {
+            e.printStackTrace();
+        }
+
+        storage.write(arr.toString());
+    }
+
+    public void addScoreIfTop10(String name, int score) {
+        List<ScoreEntry> list = load();
+        list.add(new ScoreEntry(name, score));
+        Collections.sort(list, (a, b) -> Integer.compare(b.score, a.score));
+
+        if (list.size() > MAX_ENTRIES) list = list.subList(0, MAX_ENTRIES);
+
+        save(list);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.soarandsorcery;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A {@link WorldLeaderboard} kept on this device in a {@link HighscoreStore}, for
+ * tests and for playing without a server. Callbacks run on the calling thread;
+ * listeners hear about runs submitted through this board, not ones added to the
+ * store directly. {@link #setOnline(boolean)} makes it fail like a server that
+ * cannot be reached.
+ */
+public final class LocalLeaderboard implements WorldLeaderboard {
+
+    private final HighscoreStore store;
+    private volatile boolean online = true;
+    private int fetches, submits;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private static final class Listener {
+        final int limit;
+        final Callback<List<ScoreEntry>> callback;
+
+        Listener(int limit, Callback<List<ScoreEntry>> callback) {
+            this.limit = limit;
+            this.callback = callback;
+        }
+    }
+
+    public LocalLeaderboard(HighscoreStore store) {
+        this.store = store;
+    }
+
+    public void setOnline(boolean online) {
+        this.online = online;
+    }
+
+    @Override
+    public void fetchTop(int limit, Callback<List<ScoreEntry>> callback) {
+        synchronized (this) {
+            fetches++;
+        }
+        if (!online) {
+            callback.onError(new IOException("offline"));
+            return;
+        }
+        callback.onResult(top(limit));
+    }
+
+    private List<ScoreEntry> top(int limit) {
+        List<ScoreEntry> top = store.top();
+        return new ArrayList<>(top.subList(0, Math.min(limit, top.size())));
+    }
+
+    @Override
+    public Registration listenTop(int limit, Callback<List<ScoreEntry>> callback) {
+        Listener listener = new Listener(limit, callback);
+        listeners.add(listener);
+        if (online) callback.onResult(top(limit));
+        else callback.onError(new IOException("offline"));
+        return () -> listeners.remove(listener);
+    }
+
+    @Override
+    public void submitAll(List<ScoreEntry> entries, Callback<Void> callback) {
+        synchronized (this) {
+            submits++;
+        }
+        if (!online) {
+            callback.onError(new IOException("offline"));
+            return;
+        }
+        for (ScoreEntry e : entries) store.add(e.name, e.score);
+        callback.onResult(null);
+        for (Listener l : listeners) l.callback.onResult(top(l.limit));
+    }
+
+    /** Calls made so far, answered or not; tests use these to count round-trips. */
+    public synchronized int fetchCount() { return fetches; }
+    public synchronized int submitCount() { return submits; }
+}
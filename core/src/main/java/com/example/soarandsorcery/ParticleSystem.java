@@ -0,0 +1,144 @@
+package com.example.soarandsorcery;
+
+/**
+ * Fixed pool of short-lived sparks: coin bursts, crash debris, score milestones.
+ * Each particle is a slot in parallel primitive arrays; live ones are packed at the
+ * front, and a dying one is replaced by the last, so nothing is allocated after
+ * construction and a burst into a full pool is simply cut short.
+ *
+ * Particles step on the world's fixed tick: {@link GameWorld} ticks them with its
+ * own ticks, and after a crash on its clock alone, so the burst keeps flying after
+ * the run has stopped. Positions are in world pixels and interpolated between
+ * ticks like everything else that is drawn.
+ */
+public final class ParticleSystem {
+
+    /** Palette entries; the renderer decides what they look like. */
+    public static final int GOLD = 0;
+    public static final int EMBER = 1;
+    public static final int SMOKE = 2;
+    public static final int STAR = 3;
+    public static final int COLORS = 4;
+
+    private final float[] x, y, prevX, prevY, vx, vy;
+    private final int[] life;
+    private final byte[] color;
+    private int count;
+
+    private float gravity;
+    private int seed = 0x9E3779B9;
+
+    private float alpha = 1f;
+
+    public ParticleSystem(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        x = new float[capacity];
+        y = new float[capacity];
+        prevX = new float[capacity];
+        prevY = new float[capacity];
+        vx = new float[capacity];
+        vy = new float[capacity];
+        life = new int[capacity];
+        color = new byte[capacity];
+    }
+
+    /** Downward pull per tick, in px per tick per tick. */
+    public void setGravity(float gravity) {
+        this.gravity = gravity;
+    }
+
+    /**
+     * Spreads {@code n} particles of one palette colour from (cx, cy) in every
+     * direction at up to {@code speed} px per tick, on top of a shared drift
+     * (driftX, driftY), living {@code ticks} ticks give or take a third.
+     * Returns how many fit.
+     */
+    public int burst(float cx, float cy, int n, float speed, float driftX, float driftY, int paletteColor, int ticks) {
+        int added = 0;
+        while (added < n && count < x.length) {
+            int i = count++;
+            // Uniform in a disc: angle from one draw, radius from the root of another.
+            float angle = nextFloat() * (float) (2 * Math.PI);
+            float r = speed * (float) Math.sqrt(nextFloat());
+            x[i] = cx;
+            y[i] = cy;
+            prevX[i] = cx;
+            prevY[i] = cy;
+            vx[i] = driftX + r * (float) Math.cos(angle);
+            vy[i] = driftY + r * (float) Math.sin(angle);
+            life[i] = Math.max(1, ticks * 2 / 3 + (int) (nextFloat() * ticks * 2 / 3));
+            color[i] = (byte) paletteColor;
+            added++;
+        }
+        return added;
+    }
+
+    // xorshift32; bursts only need to look random, and this never allocates or locks.
+    private float nextFloat() {
+        int s = seed;
+        s ^= s << 13;
+        s ^= s >>> 17;
+        s ^= s << 5;
+        seed = s;
+        return (s >>> 8) / (float) (1 << 24);
+    }
+
+    /** Steps every live particle by one tick and drops the ones that ran out. */
+    public void tick() {
+        float g = gravity;
+        int i = 0;
+        while (i < count) {
+            if (--life[i] <= 0) {
+                moveLast(i);
+                continue;
+            }
+            prevX[i] = x[i];
+            prevY[i] = y[i];
+            vy[i] += g;
+            x[i] += vx[i];
+            y[i] += vy[i];
+            i++;
+        }
+    }
+
+    private void moveLast(int i) {
+        int last = --count;
+        x[i] = x[last];
+        y[i] = y[last];
+        prevX[i] = prevX[last];
+        prevY[i] = prevY[last];
+        vx[i] = vx[last];
+        vy[i] = vy[last];
+        life[i] = life[last];
+        color[i] = color[last];
+    }
+
+    /** How far between the last two ticks {@link #fillPoints} draws, 0..1. */
+    public void setAlpha(float alpha) {
+        this.alpha = alpha;
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    public int count() { return count; }
+    public int capacity() { return x.length; }
+    public float getAlpha() { return alpha; }
+
+    /**
+     * Writes the interpolated positions of every particle of {@code paletteColor}
+     * into {@code out} as x, y pairs, ready for Canvas.drawPoints, and returns the
+     * number of floats written. {@code out} needs room for twice the capacity.
+     */
+    public int fillPoints(int paletteColor, float[] out) {
+        float a = alpha;
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (color[i] != paletteColor) continue;
+            out[n++] = prevX[i] + (x[i] - prevX[i]) * a;
+            out[n++] = prevY[i] + (y[i] - prevY[i]) * a;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.soarandsorcery;
+
+/**
+ * Picks how much to draw from how frames have been keeping up. Frames are judged
+ * in windows of {@link #WINDOW} frames: a window with jank or with frame work near
+ * the budget steps quality down, and several quiet windows in a row step it back
+ * up. Each step first drops optional effects, then render resolution.
+ *
+ * Only what is drawn changes. The world keeps its own layout units, so no level
+ * changes the gameplay.
+ */
+public final class QualityController {
+
+    public static final int EFFECTS_NONE = 0;
+    /** Effects that help play, like ghosts. */
+    public static final int EFFECTS_SOME = 1;
+    public static final int EFFECTS_ALL = 2;
+
+    static final int WINDOW = 30;
+    static final int CALM_WINDOWS = 4;
+    static final int MAX_CALM_WINDOWS = 64;
+
+    // Level 0 is full quality; each level is one step cheaper.
+    private static final float[] RENDER_SCALE = { 1f, 1f, 0.85f, 0.7f, 0.7f, 0.5f };
+    private static final int[] EFFECTS = { EFFECTS_ALL, EFFECTS_SOME, EFFECTS_SOME, EFFECTS_SOME, EFFECTS_NONE, EFFECTS_NONE };
+
+    private final long periodNanos;
+    private int level;
+
+    private long lastFrameNanos = -1;
+    private int windowFrames;
+    private int windowJank;
+    private long windowWork;
+    private boolean settling;
+
+    private int calmWindows;
+    private int calmNeeded = CALM_WINDOWS;
+    private int windowsSinceUpgrade = Integer.MAX_VALUE;
+
+    /** @param periodNanos time between frames the display is paced at */
+    public QualityController(long periodNanos) {
+        if (periodNanos <= 0) throw new IllegalArgumentException("periodNanos must be positive");
+        this.periodNanos = periodNanos;
+    }
+
+    /**
+     * Records a frame drawn for {@code frameTimeNanos} that took {@code workNanos} to
+     * update and draw. Returns true when the level changed with it.
+     */
+    public boolean onFrame(long frameTimeNanos, long workNanos) {
+        if (lastFrameNanos >= 0) {
+            long gap = frameTimeNanos - lastFrameNanos;
+            if (gap * 2 > periodNanos * 3) windowJank++;
+        }
+        lastFrameNanos = frameTimeNanos;
+        windowWork += workNanos;
+        if (++windowFrames < WINDOW) return false;
+
+        boolean slow = windowJank * 10 >= WINDOW || windowWork * 5 > periodNanos * 4 * WINDOW;
+        boolean idle = windowJank == 0 && windowWork * 2 < periodNanos * WINDOW;
+        windowFrames = 0;
+        windowJank = 0;
+        windowWork = 0;
+
+        // The window right after a change pays for the switch itself.
+        if (settling) {
+            settling = false;
+            return false;
+        }
+        if (windowsSinceUpgrade < Integer.MAX_VALUE) windowsSinceUpgrade++;
+
+        if (slow) {
+            calmWindows = 0;
+            if (level == RENDER_SCALE.length - 1) return false;
+            // Falling straight back from an upgrade means it was too early; wait longer next time.
+            if (windowsSinceUpgrade <= CALM_WINDOWS) calmNeeded = Math.min(calmNeeded * 2, MAX_CALM_WINDOWS);
+            return setLevel(level + 1);
+        }
+        if (idle && level > 0 && ++calmWindows >= calmNeeded) {
+            calmWindows = 0;
+            windowsSinceUpgrade = 0;
+            return setLevel(level - 1);
+        }
+        if (!idle) calmWindows = 0;
+        return false;
+    }
+
+    /** The next frame does not follow the last one, e.g. after a pause, so the gap is not jank. */
+    public void breakSequence() {
+        lastFrameNanos = -1;
+    }
+
+    private boolean setLevel(int level) {
+        this.level = level;
+        settling = true;
+        return true;
+    }
+
+    public int getLevel() { return level; }
+    public int getLevels() { return RENDER_SCALE.length; }
+
+    /** Fraction of the view's resolution to render at, 0.5..1. */
+    public float getRenderScale() { return RENDER_SCALE[level]; }
+
+    /** One of {@link #EFFECTS_NONE}, {@link #EFFECTS_SOME}, {@link #EFFECTS_ALL}. */
+    public int getEffects() { return EFFECTS[level]; }
+}
@@ -0,0 +1,87 @@
+package com.example.soarandsorcery;
+
+import java.util.Random;
+
+/**
+ * A stand-in player for balance testing. It wants to tap whenever the knight is
+ * falling and about to sink below the bottom of the next gap, but like a person it
+ * only manages to after a reaction time drawn from a normal distribution. It aims
+ * ahead by the average reaction time, so the spread is what makes it miss: with no
+ * noise it is a near perfect player, raising the noise makes it a sloppier one.
+ */
+public final class ReferencePilot implements HeadlessSimulator.Pilot {
+
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final double reactionMeanTicks;
+    private final double reactionStdDevTicks;
+    private final int lookahead;
+    private final int margin;
+    private final Random random = new Random(0);
+
+    private long pendingFlapTick = -1;
+
+    /**
+     * @param reactionMeanMillis average delay between wanting to tap and tapping
+     * @param reactionStdDevMillis spread of that delay; 0 makes the pilot exact
+     * @param margin pixels above the gap bottom at which the pilot wants to tap
+     */
+    public ReferencePilot(double reactionMeanMillis, double reactionStdDevMillis, int margin) {
+        double tickMillis = GameWorld.TICK_NANOS / (double) NANOS_PER_MILLI;
+        this.reactionMeanTicks = reactionMeanMillis / tickMillis;
+        this.reactionStdDevTicks = reactionStdDevMillis / tickMillis;
+        this.lookahead = (int) Math.round(reactionMeanTicks);
+        this.margin = margin;
+    }
+
+    @Override
+    public void reset(long seed) {
+        random.setSeed(seed);
+        pendingFlapTick = -1;
+    }
+
+    @Override
+    public boolean shouldFlap(GameWorld world) {
+        long tick = world.getTick();
+
+        if (pendingFlapTick >= 0) {
+            if (tick < pendingFlapTick) return false;
+            pendingFlapTick = -1;
+            return true;
+        }
+
+        if (world.getVelocity() <= 0) return false;
+
+        int next = nextCastle(world);
+        int gapBottom = world.getGapTop(next) + world.getGap(next);
+        if (projectedY(world) + world.getKnightHeight() + margin <= gapBottom) return false;
+
+        long delay = reactionTicks();
+        if (delay == 0) return true;
+        pendingFlapTick = tick + delay;
+        return false;
+    }
+
+    private long reactionTicks() {
+        double ticks = reactionMeanTicks + random.nextGaussian() * reactionStdDevTicks;
+        return Math.max(0, Math.round(ticks));
+    }
+
+    // Where the knight will be after the lookahead if nobody taps.
+    private int projectedY(GameWorld world) {
+        int gravity = world.getDifficulty().gravity;
+        return world.getKnightY() + world.getVelocity() * lookahead
+                + gravity * lookahead * (lookahead + 1) / 2;
+    }
+
+    // The leftmost castle the knight has yet to clear.
+    private static int nextCastle(GameWorld world) {
+        int knightX = world.getKnightX();
+        int castle = world.getCastleWidth();
+        int n = world.getTubeCount();
+        for (int i = 0; i < n; i++) {
+            if (world.getTubeX(i) + castle >= knightX) return i;
+        }
+        return n - 1;
+    }
+}
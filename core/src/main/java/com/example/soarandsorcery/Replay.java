@@ -0,0 +1,150 @@
+package com.example.soarandsorcery;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * One finished run, kept as what it takes to play it again: the course seed, the
+ * layout and difficulty it was played with, and the ticks the knight flapped on.
+ *
+ * On disk that is a small header followed by the gaps between flap ticks as
+ * varints, so a typical run of a few hundred taps is a few hundred bytes:
+ *
+ * <pre>
+ * "SR" version           3 bytes
+ * seed                   8 bytes, big-endian
+ * layout                 7 varints: canvas w/h, knight w/h, castle w, coin w/h
+ * difficulty             8 zigzag varints, in constructor order
+ * score, ticks, flaps    3 varints
+ * flap ticks             flaps varints, each the gap to the previous (the first from 0)
+ * </pre>
+ *
+ * {@link ReplayReader} reads the same format a flap at a time.
+ */
+public final class Replay {
+
+    static final int MAGIC_0 = 'S';
+    static final int MAGIC_1 = 'R';
+    static final int VERSION = 1;
+    static final int LAYOUT_FIELDS = 7;
+
+    public final long seed;
+    final int[] layout;
+    public final Difficulty difficulty;
+    public final int score;
+    /** Ticks the run lasted. */
+    public final long ticks;
+    private final int[] flapTicks;
+
+    Replay(long seed, int[] layout, Difficulty difficulty, int score, long ticks, int[] flapTicks) {
+        this.seed = seed;
+        this.layout = layout;
+        this.difficulty = difficulty;
+        this.score = score;
+        this.ticks = ticks;
+        this.flapTicks = flapTicks;
+    }
+
+    /** Copies the run {@code world} has played since its last reset. */
+    public static Replay record(GameWorld world) {
+        return new Replay(world.getRunSeed(), layoutOf(world), world.getDifficulty(),
+                world.getScore(), world.getTick(),
+                Arrays.copyOf(world.flapTicks(), world.getFlapCount()));
+    }
+
+    public int flapCount() {
+        return flapTicks.length;
+    }
+
+    public int flapTick(int i) {
+        return flapTicks[i];
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeByte(MAGIC_0);
+        data.writeByte(MAGIC_1);
+        data.writeByte(VERSION);
+        data.writeLong(seed);
+        for (int v : layout) writeVarint(data, v);
+        writeVarint(data, zigzag(difficulty.gapDivisor));
+        writeVarint(data, zigzag(difficulty.minGapDivisor));
+        writeVarint(data, zigzag(difficulty.gapShrinkDivisor));
+        writeVarint(data, zigzag(difficulty.shrinkEvery));
+        writeVarint(data, zigzag(difficulty.castleVelocity));
+        writeVarint(data, zigzag(difficulty.gravity));
+        writeVarint(data, zigzag(difficulty.flapVelocity));
+        writeVarint(data, zigzag(difficulty.coinEvery));
+        writeVarint(data, score);
+        writeVarint(data, (int) ticks);
+        writeVarint(data, flapTicks.length);
+        int previous = 0;
+        for (int t : flapTicks) {
+            writeVarint(data, t - previous);
+            previous = t;
+        }
+        data.flush();
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + flapTicks.length);
+        try {
+            writeTo(bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // a byte array does not fail
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Reads a whole replay; see {@link ReplayReader} to stream the flaps instead. */
+    public static Replay readFrom(InputStream in) throws IOException {
+        ReplayReader reader = new ReplayReader(in);
+        int[] flaps = new int[reader.flapCount];
+        for (int i = 0; i < flaps.length; i++) {
+            flaps[i] = reader.nextFlapTick();
+            if (flaps[i] < 0) throw new EOFException("Replay ends after " + i + " of " + flaps.length + " flaps");
+        }
+        return new Replay(reader.seed, reader.layout, reader.difficulty, reader.score, reader.ticks, flaps);
+    }
+
+    static int[] layoutOf(GameWorld world) {
+        return new int[] {
+                world.getCanvasWidth(), world.getCanvasHeight(),
+                world.getKnightWidth(), world.getKnightHeight(),
+                world.getCastleWidth(), world.getCoinWidth(), world.getCoinHeight()
+        };
+    }
+
+    // ---------- VARINTS ----------
+    static void writeVarint(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    static int readVarint(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new EOFException("Replay cut off inside a number");
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Varint longer than 5 bytes");
+    }
+
+    static int zigzag(int v) {
+        return (v << 1) ^ (v >> 31);
+    }
+
+    static int unzigzag(int v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
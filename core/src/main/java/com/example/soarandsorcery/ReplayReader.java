@@ -0,0 +1,71 @@
+package com.example.soarandsorcery;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads a {@link Replay} straight off a stream: the header on construction, then
+ * one flap tick per {@link #nextFlapTick()} call as playback reaches it, so a ghost
+ * never holds more of its run than the stream's buffer.
+ */
+public final class ReplayReader implements Closeable {
+
+    public final long seed;
+    final int[] layout;
+    public final Difficulty difficulty;
+    public final int score;
+    public final long ticks;
+    public final int flapCount;
+
+    private final InputStream in;
+    private int flapsRead;
+    private int previous;
+
+    /** Reads the header; buffer {@code in} if it is a file. */
+    public ReplayReader(InputStream in) throws IOException {
+        this.in = in;
+        DataInputStream data = new DataInputStream(in);
+        int m0 = data.readUnsignedByte();
+        int m1 = data.readUnsignedByte();
+        int version = data.readUnsignedByte();
+        if (m0 != Replay.MAGIC_0 || m1 != Replay.MAGIC_1) throw new IOException("Not a replay");
+        if (version != Replay.VERSION) throw new IOException("Unknown replay version " + version);
+
+        seed = data.readLong();
+        layout = new int[Replay.LAYOUT_FIELDS];
+        for (int i = 0; i < layout.length; i++) layout[i] = Replay.readVarint(in);
+        try {
+            difficulty = new Difficulty(signed(), signed(), signed(), signed(), signed(), signed(), signed(), signed());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Replay has invalid difficulty", e);
+        }
+        score = Replay.readVarint(in);
+        ticks = Replay.readVarint(in);
+        flapCount = Replay.readVarint(in);
+    }
+
+    private int signed() throws IOException {
+        return Replay.unzigzag(Replay.readVarint(in));
+    }
+
+    /** Whether this run was played on {@code world}'s layout and difficulty, so it replays exactly there. */
+    public boolean fits(GameWorld world) {
+        return Arrays.equals(layout, Replay.layoutOf(world)) && difficulty.equals(world.getDifficulty());
+    }
+
+    /** The next tick the run flapped on, or -1 after the last one. */
+    public int nextFlapTick() throws IOException {
+        if (flapsRead == flapCount) return -1;
+        previous += Replay.readVarint(in);
+        flapsRead++;
+        return previous;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
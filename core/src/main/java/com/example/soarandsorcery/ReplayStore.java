@@ -0,0 +1,115 @@
+package com.example.soarandsorcery;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps the best few replays as files in one directory. The score and save time are
+ * in the file name, so ranking and pruning never open a file; anything past the
+ * best {@code keep} runs is deleted as soon as a better one is saved.
+ */
+public final class ReplayStore {
+
+    private static final String PREFIX = "run-";
+    private static final String SUFFIX = ".rpl";
+
+    private final File dir;
+    private final int keep;
+    private long lastSavedMillis;
+
+    public ReplayStore(File dir, int keep) {
+        if (keep <= 0) throw new IllegalArgumentException("keep must be positive");
+        this.dir = dir;
+        this.keep = keep;
+    }
+
+    /**
+     * Saves the replay if it makes the best {@code keep}, then drops whatever fell out.
+     * Returns whether it was kept. Writes to a temporary file and renames it, so a
+     * crash never leaves half a replay behind.
+     */
+    public synchronized boolean save(Replay replay) throws IOException {
+        List<File> best = best();
+        if (best.size() >= keep && replay.score <= scoreOf(best.get(keep - 1))) return false;
+
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        // Names must be unique and keep save order among equal scores.
+        long now = Math.max(System.currentTimeMillis(), lastSavedMillis + 1);
+        lastSavedMillis = now;
+        File target = new File(dir, PREFIX + replay.score + "-" + now + SUFFIX);
+        File tmp = new File(dir, target.getName() + ".tmp");
+
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp))) {
+            replay.writeTo(out);
+        }
+        if (!tmp.renameTo(target)) {
+            tmp.delete();
+            throw new IOException("Cannot rename " + tmp + " to " + target);
+        }
+
+        best = best();
+        for (int i = keep; i < best.size(); i++) {
+            best.get(i).delete();
+        }
+        return true;
+    }
+
+    /** Saved replays, best score first; among equal scores the earlier run first. */
+    public synchronized List<File> best() {
+        List<File> files = new ArrayList<>();
+        File[] all = dir.listFiles();
+        if (all == null) return files;
+        for (File f : all) {
+            if (scoreOf(f) >= 0) files.add(f);
+        }
+        Collections.sort(files, (a, b) -> {
+            int byScore = Integer.compare(scoreOf(b), scoreOf(a));
+            return byScore != 0 ? byScore : Long.compare(timeOf(a), timeOf(b));
+        });
+        return files;
+    }
+
+    /** Opens a saved replay for streaming; the caller closes it. */
+    public ReplayReader open(File file) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            return new ReplayReader(in);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    // run-<score>-<millis>.rpl; -1 for anything else in the directory.
+    private static int scoreOf(File f) {
+        String[] parts = parts(f);
+        return parts == null ? -1 : Integer.parseInt(parts[0]);
+    }
+
+    private static long timeOf(File f) {
+        String[] parts = parts(f);
+        return parts == null ? 0 : Long.parseLong(parts[1]);
+    }
+
+    private static String[] parts(File f) {
+        String name = f.getName();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) return null;
+        String[] parts = name.substring(PREFIX.length(), name.length() - SUFFIX.length()).split("-");
+        if (parts.length != 2) return null;
+        for (String p : parts) {
+            if (p.isEmpty()) return null;
+            for (int i = 0; i < p.length(); i++) {
+                if (!Character.isDigit(p.charAt(i))) return null;
+            }
+        }
+        return parts;
+    }
+}
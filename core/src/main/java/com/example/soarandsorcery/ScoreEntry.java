@@ -0,0 +1,18 @@
+package com.example.soarandsorcery;
+
+/** A nickname, the score it got, and when the run ended (epoch millis, 0 if not known). */
+public final class ScoreEntry {
+    public final String name;
+    public final int score;
+    public final long millis;
+
+    public ScoreEntry(String name, int score) {
+        this(name, score, 0);
+    }
+
+    public ScoreEntry(String name, int score, long millis) {
+        this.name = name;
+        this.score = score;
+        this.millis = millis;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.soarandsorcery;
+
+/**
+ * How many runs got each score, as a Fenwick tree with one bucket per score, so
+ * rank, percentile and range counts are each O(log maxScore) however many runs
+ * there are. The tree starts small and doubles as higher scores arrive; scores
+ * past {@link #MAX_SCORE} share its bucket.
+ */
+public final class ScoreIndex {
+
+    public static final int MAX_SCORE = (1 << 20) - 1;
+    private static final int INITIAL_BUCKETS = 1024;
+
+    // 1-based: tree[i] holds the runs scoring in (i - lowbit(i), i], shifted down by one.
+    private long[] tree = new long[INITIAL_BUCKETS + 1];
+    private long count;
+
+    public void add(int score) {
+        add(score, 1);
+    }
+
+    public void add(int score, long runs) {
+        int s = clamp(score);
+        if (s + 1 >= tree.length) grow(s + 1);
+        for (int i = s + 1; i < tree.length; i += i & -i) {
+            tree[i] += runs;
+        }
+        count += runs;
+    }
+
+    /** Adds every run counted in {@code other}; the trees are summed node by node. */
+    public void addAll(ScoreIndex other) {
+        if (other.tree.length > tree.length) grow(other.tree.length - 1);
+        long[] theirs = other.tree;
+        if (theirs.length < tree.length) {
+            // Bring a copy of the smaller tree to this size first; grow() keeps it exact.
+            ScoreIndex copy = new ScoreIndex();
+            copy.tree = theirs.clone();
+            copy.count = other.count;
+            copy.grow(tree.length - 1);
+            theirs = copy.tree;
+        }
+        for (int i = 1; i < tree.length; i++) tree[i] += theirs[i];
+        count += other.count;
+    }
+
+    /*
+     * With power-of-two sizes every old node keeps its range. Of the new nodes,
+     * each doubling's last one covers all the old scores and the rest cover only
+     * new, still empty ones.
+     */
+    private void grow(int needed) {
+        int buckets = tree.length - 1;
+        int size = buckets;
+        while (size < needed) size <<= 1;
+        long[] grown = new long[size + 1];
+        System.arraycopy(tree, 0, grown, 0, tree.length);
+        for (int p = buckets << 1; p <= size; p <<= 1) grown[p] = count;
+        tree = grown;
+    }
+
+    private static int clamp(int score) {
+        return Math.max(0, Math.min(score, MAX_SCORE));
+    }
+
+    /** Runs stored. */
+    public long count() {
+        return count;
+    }
+
+    /** Runs that scored {@code score} or less. */
+    public long countAtMost(int score) {
+        if (score < 0) return 0;
+        int i = Math.min(clamp(score) + 1, tree.length - 1);
+        long sum = 0;
+        for (; i > 0; i -= i & -i) sum += tree[i];
+        return sum;
+    }
+
+    /** Runs that scored less than {@code score}. */
+    public long countBelow(int score) {
+        return score <= 0 ? 0 : countAtMost(score - 1);
+    }
+
+    /** Runs that scored more than {@code score}. */
+    public long countAbove(int score) {
+        return count - countAtMost(score);
+    }
+
+    /** Place {@code score} would take, 1 for the best; ties share the better place. */
+    public long rankOf(int score) {
+        return countAbove(score) + 1;
+    }
+
+    /** Percentage of runs that scored less than {@code score}, 0..100; 0 with no runs. */
+    public double percentile(int score) {
+        return count == 0 ? 0 : 100.0 * countBelow(score) / count;
+    }
+
+    /** Runs that scored from {@code from} to {@code to}, both included. */
+    public long range(int from, int to) {
+        if (from > to) return 0;
+        return countAtMost(to) - countBelow(from);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.soarandsorcery;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free queue for one producer thread and one consumer thread.
+ *
+ * Each side owns one index and only reads the other's. The producer writes the slot
+ * before it publishes the new tail and the consumer clears the slot before it
+ * publishes the new head; the ordered store of {@code lazySet} against the volatile
+ * read on the other side is all the ordering that needs.
+ */
+final class SpscQueue<E> {
+
+    private final Object[] buffer;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Capacity is rounded up to a power of two. */
+    SpscQueue(int capacity) {
+        int n = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        buffer = new Object[n];
+        mask = n - 1;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /** Producer only. Returns false if the queue is full. */
+    boolean offer(E e) {
+        long t = tail.get();
+        if (t - head.get() > mask) return false;
+        buffer[(int) t & mask] = e;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /** Producer only; may still say full just after the consumer made room. */
+    boolean isFull() {
+        return tail.get() - head.get() > mask;
+    }
+
+    /** Consumer only. Returns null if the queue is empty. */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        long h = head.get();
+        if (h == tail.get()) return null;
+        int s = (int) h & mask;
+        E e = (E) buffer[s];
+        buffer[s] = null;
+        head.lazySet(h + 1);
+        return e;
+    }
+
+    /** A snapshot; either side may have moved on by the time it returns. */
+    int size() {
+        return (int) (tail.get() - head.get());
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.soarandsorcery;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Durations counted into fixed-width buckets: {@link #BUCKET_NANOS} wide up to
+ * {@link #RANGE_NANOS}, and one overflow bucket past that. Recording is an index and
+ * an increment, so it can run every frame without allocating.
+ */
+public final class TimingHistogram {
+
+    public static final long BUCKET_NANOS = 250_000L;
+    public static final int BUCKETS = 400;
+    public static final long RANGE_NANOS = BUCKET_NANOS * BUCKETS;
+
+    private final long[] counts = new long[BUCKETS + 1];
+    private long count;
+    private long total;
+    private long max;
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        int bucket = nanos >= RANGE_NANOS ? BUCKETS : (int) (nanos / BUCKET_NANOS);
+        counts[bucket]++;
+        count++;
+        total += nanos;
+        if (nanos > max) max = nanos;
+    }
+
+    public long count() { return count; }
+    public long max() { return max; }
+    public long mean() { return count == 0 ? 0 : total / count; }
+
+    /**
+     * Upper edge of the bucket holding the {@code p}-th fraction of samples (0..1), so
+     * never below the true percentile; {@link #max()} once it falls in the overflow bucket.
+     */
+    public long percentile(double p) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p * count));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= rank) return (b + 1) * BUCKET_NANOS;
+        }
+        return max;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+    /** Non-empty buckets as {@code fromMicros,count} lines; the overflow bucket ends open as {@code fromMicros+}. */
+    public void writeTo(Appendable out) throws IOException {
+        for (int b = 0; b <= BUCKETS; b++) {
+            if (counts[b] == 0) continue;
+            out.append(Long.toString(b * BUCKET_NANOS / 1000));
+            if (b == BUCKETS) out.append('+');
+            out.append(',').append(Long.toString(counts[b])).append('\n');
+        }
+    }
+}
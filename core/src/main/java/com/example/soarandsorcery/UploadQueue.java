@@ -0,0 +1,251 @@
+package com.example.soarandsorcery;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * World scores waiting to be sent, kept in a file so they outlive the process.
+ * Only the best run per nickname is kept, and a run the {@link LeaderboardCache}
+ * already knows cannot make the list is never queued. A flush first refreshes
+ * the cached top list if it is stale, drops whatever fell below its cutoff, and
+ * sends the rest in one {@link WorldLeaderboard#submitAll} call. A failed flush
+ * is tried again after a delay that doubles up to {@link #MAX_RETRY_MILLIS};
+ * {@link #onConnected()} skips the wait.
+ *
+ * The file uses the {@link HighscoreStore} record format with kind 'Q' and is
+ * replaced whole on {@code writer} after every change. A run's end time goes with
+ * it, so the board can tell runs apart and recognise one it has already taken.
+ */
+public final class UploadQueue {
+
+    static final long FIRST_RETRY_MILLIS = 2_000;
+    static final long MAX_RETRY_MILLIS = 10 * 60_000;
+
+    /** Runs a task once after a delay; the app posts to a Handler, tests keep them. */
+    public interface Timer {
+        void schedule(Runnable task, long delayMillis);
+    }
+
+    /** Told about runs once the board has taken them. */
+    public interface OnSentListener {
+        void onSent(List<ScoreEntry> sent);
+    }
+
+    private final File file;
+    private final WorldLeaderboard board;
+    private final LeaderboardCache cache;
+    private final Executor writer;
+    private final Timer timer;
+    private volatile OnSentListener onSent;
+
+    // Guarded by this. Best run per nickname, in the order the nicknames came.
+    private final Map<String, ScoreEntry> pending = new LinkedHashMap<>();
+    private boolean sending;
+    private boolean retryScheduled;
+    private boolean saveScheduled;
+    private long retryMillis = FIRST_RETRY_MILLIS;
+
+    // Held while writing the file, so two saves never interleave.
+    private final Object io = new Object();
+
+    private final Runnable saveTask = () -> {
+        try {
+            save();
+        } catch (IOException e) {
+            // The runs stay queued in memory; the next change writes them again.
+        }
+    };
+
+    private final Runnable retryTask = () -> {
+        synchronized (this) {
+            retryScheduled = false;
+        }
+        flush();
+    };
+
+    public UploadQueue(File file, WorldLeaderboard board, LeaderboardCache cache, Executor writer, Timer timer) {
+        this.file = file;
+        this.board = board;
+        this.cache = cache;
+        this.writer = writer;
+        this.timer = timer;
+    }
+
+    /** Called on whatever thread the board answers on; null for nobody. */
+    public void setOnSentListener(OnSentListener listener) {
+        onSent = listener;
+    }
+
+    /**
+     * Reads the runs a previous process left unsent on {@code writer}, then flushes
+     * them. A damaged file counts as empty. Runs offered before it finishes are kept.
+     */
+    public void load() {
+        writer.execute(() -> {
+            readSaved();
+            flush();
+        });
+    }
+
+    private void readSaved() {
+        List<ScoreEntry> saved = new ArrayList<>();
+        try {
+            synchronized (io) {
+                HighscoreStore.readRecords(file, 'Q', Long.MAX_VALUE, (name, score, millis) -> saved.add(new ScoreEntry(name, score, millis)));
+            }
+        } catch (IOException e) {
+            saved.clear();
+        }
+        synchronized (this) {
+            for (ScoreEntry e : saved) keepBest(e);
+        }
+    }
+
+    /**
+     * Queues a run and starts a flush. Returns false when it was not queued: the
+     * cached cutoff already beats it, or its nickname has as good a run waiting.
+     */
+    public boolean offer(ScoreEntry entry) {
+        if (!cache.mayQualify(entry.score)) return false;
+        synchronized (this) {
+            if (!keepBest(entry)) return false;
+        }
+        scheduleSave();
+        flush();
+        return true;
+    }
+
+    private boolean keepBest(ScoreEntry entry) {
+        ScoreEntry queued = pending.get(entry.name);
+        if (queued != null && queued.score >= entry.score) return false;
+        pending.put(entry.name, entry);
+        return true;
+    }
+
+    /** Sends what is queued unless a send is already under way. */
+    public void flush() {
+        synchronized (this) {
+            if (sending || pending.isEmpty()) return;
+            sending = true;
+        }
+        cache.top(new WorldLeaderboard.Callback<List<ScoreEntry>>() {
+            @Override
+            public void onResult(List<ScoreEntry> top) {
+                send();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                failed();
+            }
+        });
+    }
+
+    private void send() {
+        List<ScoreEntry> batch = new ArrayList<>();
+        boolean dropped = false;
+        synchronized (this) {
+            for (Iterator<ScoreEntry> it = pending.values().iterator(); it.hasNext(); ) {
+                ScoreEntry e = it.next();
+                if (cache.mayQualify(e.score)) {
+                    batch.add(e);
+                } else {
+                    it.remove();
+                    dropped = true;
+                }
+            }
+            if (batch.isEmpty()) sending = false;
+        }
+        if (dropped) scheduleSave();
+        if (batch.isEmpty()) return;
+
+        board.submitAll(batch, new WorldLeaderboard.Callback<Void>() {
+            @Override
+            public void onResult(Void result) {
+                boolean more;
+                synchronized (UploadQueue.this) {
+                    // A better run queued meanwhile stays for the next flush.
+                    for (ScoreEntry e : batch) pending.remove(e.name, e);
+                    sending = false;
+                    retryMillis = FIRST_RETRY_MILLIS;
+                    more = !pending.isEmpty();
+                }
+                cache.recordSubmitted(batch);
+                scheduleSave();
+                OnSentListener listener = onSent;
+                if (listener != null) listener.onSent(Collections.unmodifiableList(batch));
+                if (more) flush();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                failed();
+            }
+        });
+    }
+
+    private void failed() {
+        long delay;
+        synchronized (this) {
+            sending = false;
+            if (retryScheduled) return;
+            retryScheduled = true;
+            delay = retryMillis;
+            retryMillis = Math.min(retryMillis * 2, MAX_RETRY_MILLIS);
+        }
+        timer.schedule(retryTask, delay);
+    }
+
+    /** The network is back: forget the backoff and send now. */
+    public void onConnected() {
+        synchronized (this) {
+            retryMillis = FIRST_RETRY_MILLIS;
+        }
+        flush();
+    }
+
+    /** Runs waiting to be sent, best per nickname. */
+    public synchronized List<ScoreEntry> pending() {
+        return new ArrayList<>(pending.values());
+    }
+
+    private void scheduleSave() {
+        synchronized (this) {
+            if (saveScheduled) return;
+            saveScheduled = true;
+        }
+        writer.execute(saveTask);
+    }
+
+    private void save() throws IOException {
+        synchronized (io) {
+            byte[] bytes;
+            synchronized (this) {
+                saveScheduled = false;
+                if (pending.isEmpty()) {
+                    bytes = null;
+                } else {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream(HighscoreStore.HEADER_BYTES + pending.size() * HighscoreStore.RECORD_BYTES);
+                    HighscoreStore.writeHeader(out, 'Q');
+                    for (ScoreEntry e : pending.values()) HighscoreStore.writeRecord(out, e.score, e.millis, e.name);
+                    bytes = out.toByteArray();
+                }
+            }
+            if (bytes == null) {
+                if (file.exists() && !file.delete()) throw new IOException("Cannot delete " + file);
+                return;
+            }
+            File dir = file.getParentFile();
+            if (dir != null && !dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+            HighscoreStore.replace(file, bytes);
+        }
+    }
+}
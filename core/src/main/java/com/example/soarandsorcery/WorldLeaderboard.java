@@ -0,0 +1,40 @@
+package com.example.soarandsorcery;
+
+import java.util.List;
+
+/**
+ * The shared, online top list. Calls return at once and answer through a
+ * {@link Callback} later, on whatever thread the implementation uses; the app's
+ * Firestore one answers on the main thread.
+ */
+public interface WorldLeaderboard {
+
+    /** Answer to one call: exactly one of the two methods runs. */
+    interface Callback<T> {
+        void onResult(T result);
+
+        void onError(Exception e);
+    }
+
+    /** Handle to a running listener. */
+    interface Registration {
+        void remove();
+    }
+
+    /** The best {@code limit} scores, highest first. */
+    void fetchTop(int limit, Callback<List<ScoreEntry>> callback);
+
+    /**
+     * Calls back with the best {@code limit} scores now and again every time they
+     * change, until the registration is removed. An error may end the updates;
+     * remove the registration then too.
+     */
+    Registration listenTop(int limit, Callback<List<ScoreEntry>> callback);
+
+    /**
+     * Stores the runs in one write, all or none; the callback gets {@code null}
+     * once they are saved. Sending the same runs again must not duplicate them;
+     * a run is its nickname, score and {@link ScoreEntry#millis}.
+     */
+    void submitAll(List<ScoreEntry> entries, Callback<Void> callback);
+}
@@ -0,0 +1,80 @@
+package com.example.soarandsorcery;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CollisionMaskTest {
+
+    private static final int SOLID = 0xFF000000;
+
+    @Test
+    public void fromArgb_usesAlphaThreshold() {
+        int[] argb = { SOLID, 0x7F000000, 0x80FFFFFF, 0 };
+        CollisionMask mask = CollisionMask.fromArgb(argb, 2, 2, 128);
+
+        assertTrue(mask.get(0, 0));
+        assertFalse(mask.get(1, 0));
+        assertTrue(mask.get(0, 1));
+        assertFalse(mask.get(1, 1));
+        assertFalse(mask.get(-1, 0));
+    }
+
+    @Test
+    public void solidRows_skipTransparentEdges() {
+        int[] argb = new int[5 * 4];
+        argb[1 * 5 + 2] = SOLID;
+        argb[2 * 5 + 4] = SOLID;
+        CollisionMask mask = CollisionMask.fromArgb(argb, 5, 4, 128);
+
+        assertEquals(1, mask.firstRow());
+        assertEquals(2, mask.lastRow());
+    }
+
+    @Test
+    public void overlapsAndRects_matchPixelByPixel() {
+        Random random = new Random(42);
+        for (int round = 0; round < 300; round++) {
+            CollisionMask a = randomMask(random, 1 + random.nextInt(150), 1 + random.nextInt(40));
+            CollisionMask b = randomMask(random, 1 + random.nextInt(150), 1 + random.nextInt(40));
+            int dx = random.nextInt(300) - 150;
+            int dy = random.nextInt(80) - 40;
+
+            assertEquals("round " + round, bruteOverlap(a, b, dx, dy), a.overlaps(b, dx, dy));
+
+            int left = random.nextInt(200) - 20, top = random.nextInt(60) - 10;
+            int right = left + random.nextInt(100), bottom = top + random.nextInt(30);
+            assertEquals("round " + round, bruteRect(a, left, top, right, bottom),
+                    a.anyInRect(left, top, right, bottom));
+        }
+    }
+
+    private static CollisionMask randomMask(Random random, int w, int h) {
+        int[] argb = new int[w * h];
+        float density = random.nextFloat() * 0.2f;
+        for (int i = 0; i < argb.length; i++) {
+            if (random.nextFloat() < density) argb[i] = SOLID;
+        }
+        return CollisionMask.fromArgb(argb, w, h, 128);
+    }
+
+    private static boolean bruteOverlap(CollisionMask a, CollisionMask b, int dx, int dy) {
+        for (int y = 0; y < a.height(); y++) {
+            for (int x = 0; x < a.width(); x++) {
+                if (a.get(x, y) && b.get(x - dx, y - dy)) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean bruteRect(CollisionMask a, int left, int top, int right, int bottom) {
+        for (int y = top; y < bottom; y++) {
+            for (int x = left; x < right; x++) {
+                if (a.get(x, y)) return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.soarandsorcery;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class CourseGeneratorTest {
+
+    private static final int WIDTH = 1080;
+    private static final int KNIGHT = 108;
+    private static final int CASTLE = 180;
+    private static final int SPACING = WIDTH / 2 + CASTLE;
+
+    @Test
+    public void sameSeed_givesTheSameCourseOnAnyThread() throws InterruptedException {
+        int[][] inline = course(new CourseGenerator(null), 42, Difficulty.DEFAULT, 2280, 200);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            int[][] ahead = course(new CourseGenerator(executor), 42, Difficulty.DEFAULT, 2280, 200);
+            assertCourseEquals(inline, ahead);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // A producer that never gets to run: the tick loop makes every chunk itself.
+        int[][] starved = course(new CourseGenerator(r -> { }), 42, Difficulty.DEFAULT, 2280, 200);
+        assertCourseEquals(inline, starved);
+    }
+
+    @Test
+    public void restart_dropsWhatWasMadeForTheOldCourse() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CourseGenerator generator = new CourseGenerator(executor);
+            int[][] first = course(generator, 7, Difficulty.DEFAULT, 2280, 50);
+            course(generator, 8, Difficulty.DEFAULT, 2280, 5);
+            Thread.sleep(20);   // let the producer fill the queue for seed 8
+            assertCourseEquals(first, course(generator, 7, Difficulty.DEFAULT, 2280, 50));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void restart_whileARefillIsRunning_keepsTheSeedsCourse() {
+        int[][] inline = course(new CourseGenerator(null), 42, Difficulty.DEFAULT, 2280, 40);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CourseGenerator generator = new CourseGenerator(executor);
+            for (int run = 0; run < 300; run++) {
+                // Taking a chunk starts a refill, which is still going when the next restart comes.
+                course(generator, run, Difficulty.DEFAULT, 2280, 1);
+                assertCourseEquals(inline, course(generator, 42, Difficulty.DEFAULT, 2280, 40));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void gaps_followTheShrinkSchedule() {
+        int[][] c = course(new CourseGenerator(null), 1, Difficulty.DEFAULT, 2280, 100);
+
+        assertEquals(2280 / 3, c[1][0]);
+        assertEquals(2280 / 3, c[1][11]);
+        assertEquals(2280 / 3 - 2280 / 40, c[1][12]);
+        assertEquals(2280 / 6, c[1][99]);
+        // A coin comes with every fifth castle.
+        assertTrue(c[2][4] >= 0 && c[2][9] >= 0);
+        assertEquals(-1, c[2][5]);
+    }
+
+    @Test
+    public void smallMinGap_onShortScreen_staysPassable() {
+        // The minimum gap of 100 px does not even fit the 108 px knight.
+        Difficulty hard = Difficulty.DEFAULT.withMinGapDivisor(12).withGapShrinkDivisor(10).withShrinkEvery(1);
+        int height = 1200;
+        int[][] c = course(new CourseGenerator(null), 3, hard, height, 20);
+
+        assertTrue(passable(c[0], c[1], height, hard));
+        for (int gap : c[1]) assertTrue(gap > KNIGHT);
+
+        int[] narrow = c[1].clone();
+        for (int i = 3; i < narrow.length; i++) narrow[i] = height / 12;
+        assertFalse(passable(c[0], narrow, height, hard));
+    }
+
+    // gapTop, gap and coinY of the first n castles.
+    private static int[][] course(CourseGenerator generator, long seed, Difficulty difficulty, int height, int n) {
+        generator.restart(seed, difficulty, WIDTH, height, WIDTH / 4, height / 2,
+                KNIGHT, KNIGHT, CASTLE, SPACING, 72);
+        int[][] c = new int[3][n];
+        for (int i = 0; i < n; i++) {
+            generator.advance();
+            c[0][i] = generator.gapTop();
+            c[1][i] = generator.gap();
+            c[2][i] = generator.coinY();
+        }
+        return c;
+    }
+
+    private static void assertCourseEquals(int[][] expected, int[][] actual) {
+        for (int row = 0; row < 3; row++) {
+            for (int i = 0; i < expected[row].length; i++) {
+                assertEquals("castle " + i, expected[row][i], actual[row][i]);
+            }
+        }
+    }
+
+    /*
+     * Exhaustive search over every height and time since the last flap, tick by tick,
+     * with the same column rule as the generator: whether any input gets the knight
+     * past the last castle.
+     */
+    private static boolean passable(int[] tops, int[] gaps, int height, Difficulty d) {
+        int knightX = WIDTH / 4;
+        int floor = height - KNIGHT;
+        int ages = 200;
+        boolean[][] reach = new boolean[ages + 1][floor + 1];
+        int fallY = height / 2, fallVelocity = 0;
+        boolean falling = true;
+
+        long end = (WIDTH + (long) (tops.length - 1) * SPACING + CASTLE - knightX) / d.castleVelocity + 1;
+        for (long n = 1; n <= end; n++) {
+            int top = 0, bottom = floor;
+            for (int k = 0; k < tops.length; k++) {
+                long prevX = WIDTH + (long) k * SPACING - (n - 1) * d.castleVelocity;
+                long x = prevX - d.castleVelocity;
+                if (prevX + CASTLE > knightX && x < knightX + KNIGHT) {
+                    top = Math.max(top, tops[k]);
+                    bottom = Math.min(bottom, tops[k] + gaps[k] - KNIGHT);
+                }
+            }
+
+            boolean[][] next = new boolean[ages + 1][floor + 1];
+            boolean any = false;
+            for (int y = 0; y <= floor; y++) {
+                boolean here = falling && fallY == y;
+                for (int a = 1; a <= ages && !here; a++) here = reach[a][y];
+                int ny = y + d.flapVelocity + d.gravity;
+                if (here && ny >= top && ny <= bottom) {
+                    next[1][ny] = true;
+                    any = true;
+                }
+            }
+            for (int a = 2; a <= ages; a++) {
+                int v = d.flapVelocity + d.gravity * a;
+                for (int y = 0; y <= floor; y++) {
+                    int ny = y + v;
+                    if (reach[a - 1][y] && ny >= top && ny <= bottom) {
+                        next[a][ny] = true;
+                        any = true;
+                    }
+                }
+            }
+            if (falling) {
+                fallVelocity += d.gravity;
+                fallY += fallVelocity;
+                falling = fallY >= top && fallY <= bottom;
+            }
+            if (!any && !falling) return false;
+            reach = next;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.soarandsorcery;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EntityRingTest {
+
+    @Test
+    public void capacity_isRoundedUpToPowerOfTwo() {
+        assertEquals(16, new EntityRing(16).capacity());
+        assertEquals(32, new EntityRing(17).capacity());
+        assertEquals(2, new EntityRing(1).capacity());
+    }
+
+    @Test
+    public void entities_keepOrderAcrossTheWrap() {
+        EntityRing ring = new EntityRing(4);
+        for (int round = 0; round < 10; round++) {
+            ring.add(round, 0, 0, 0);
+            if (ring.count() == 3) ring.removeFirst();
+        }
+
+        assertEquals(2, ring.count());
+        assertEquals(8, ring.x[ring.slot(0)]);
+        assertEquals(9, ring.x[ring.slot(1)]);
+        assertEquals(9, ring.x[ring.lastSlot()]);
+    }
+
+    @Test
+    public void add_failsWhenFullAndResetsFlags() {
+        EntityRing ring = new EntityRing(2);
+        int s = ring.add(1, 2, 3, 4);
+        ring.flags[s] = EntityRing.FLAG_PASSED;
+        ring.add(5, 6, 7, 8);
+
+        assertEquals(-1, ring.add(9, 9, 9, 9));
+
+        ring.removeFirst();
+        int reused = ring.add(10, 11, 12, 13);
+        assertEquals(s, reused);
+        assertEquals(0, ring.flags[reused]);
+        assertEquals(10, ring.prevX[reused]);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.soarandsorcery;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FrameStatsTest {
+
+    private static final long MS = 1_000_000L;
+    private static final long PERIOD = 16_666_667L;
+
+    @Test
+    public void histogram_percentilesRoundUpToTheirBucket() {
+        TimingHistogram h = new TimingHistogram();
+        for (int i = 1; i <= 100; i++) h.record(i * 100_000L); // 0.1 .. 10 ms
+
+        assertEquals(100, h.count());
+        assertEquals(10 * MS, h.max());
+        assertEquals(5_050_000L, h.mean());
+        assertEquals(5_250_000L, h.percentile(0.5)); // 5.0 ms sits in [5.0, 5.25)
+        assertEquals(10 * MS, h.percentile(0.99));
+    }
+
+    @Test
+    public void histogram_keepsOutliersInTheOverflowBucket() {
+        TimingHistogram h = new TimingHistogram();
+        h.record(1 * MS);
+        h.record(5_000 * MS);
+
+        assertEquals(5_000 * MS, h.percentile(1.0));
+        StringBuilder out = new StringBuilder();
+        try {
+            h.writeTo(out);
+        } catch (java.io.IOException e) {
+            fail("StringBuilder does not fail");
+        }
+        assertEquals("1000,1\n" + TimingHistogram.RANGE_NANOS / 1000 + "+,1\n", out.toString());
+    }
+
+    @Test
+    public void frames_countJankAndMissedVsyncs() {
+        FrameStats stats = new FrameStats(PERIOD);
+        long t = 0;
+        stats.onFrame(t, MS, 2 * MS);
+        t += PERIOD;
+        stats.onFrame(t, MS, 2 * MS);   // on time
+        t += 2 * PERIOD;
+        stats.onFrame(t, MS, 2 * MS);   // one vsync missed
+        t += 4 * PERIOD;
+        stats.onFrame(t, MS, 2 * MS);   // three missed
+
+        assertEquals(4, stats.getFrames());
+        assertEquals(3, stats.interval().count());
+        assertEquals(2, stats.getJankFrames());
+        assertEquals(4, stats.getMissedFrames());
+        assertEquals(4, stats.update().count());
+    }
+
+    @Test
+    public void breakSequence_doesNotCountThePauseAsAnInterval() {
+        FrameStats stats = new FrameStats(PERIOD);
+        stats.onFrame(0, MS, MS);
+        stats.breakSequence();
+        stats.onFrame(60 * PERIOD, MS, MS);
+        stats.onFrame(61 * PERIOD, MS, MS);
+
+        assertEquals(1, stats.interval().count());
+        assertEquals(0, stats.getJankFrames());
+        assertEquals(0, stats.getMissedFrames());
+
+        stats.clear();
+        assertEquals(0, stats.getFrames());
+        assertEquals(0, stats.draw().count());
+    }
+}
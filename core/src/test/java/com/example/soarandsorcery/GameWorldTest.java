@@ -0,0 +1,221 @@
+package com.example.soarandsorcery;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GameWorldTest {
+
+    private static GameWorld newWorld(long seed) {
+        GameWorld world = new GameWorld(new Random(seed));
+        world.setDimensions(1080, 2280, 108, 108, 180, 72, 72);
+        world.reset();
+        world.start();
+        return world;
+    }
+
+    @Test
+    public void frameRate_doesNotChangeSimulation() {
+        GameWorld slow = newWorld(7);
+        GameWorld fast = newWorld(7);
+
+        long t = 0;
+        slow.advance(t);
+        fast.advance(t);
+
+        // One second at 25 fps against one second at 120 fps (rounded to whole nanos).
+        for (int i = 1; i <= 25; i++) slow.advance(t + i * 40_000_000L);
+        for (int i = 1; i <= 120; i++) fast.advance(t + i * 1_000_000_000L / 120);
+
+        assertEquals(slow.getTick(), fast.getTick());
+        assertEquals(slow.getKnightY(), fast.getKnightY());
+        assertEquals(slow.getTubeX(0), fast.getTubeX(0));
+        assertEquals(slow.getTubeX(1), fast.getTubeX(1));
+    }
+
+    @Test
+    public void longStall_isClampedInsteadOfReplayed() {
+        GameWorld world = newWorld(1);
+        world.advance(0);
+        world.advance(10_000_000_000L);
+
+        assertTrue(world.getTick() <= 5);
+    }
+
+    @Test
+    public void renderPosition_isInterpolatedBetweenTicks() {
+        GameWorld world = newWorld(3);
+        world.advance(0);
+        world.advance(GameWorld.TICK_NANOS);
+        float before = world.getTubeRenderX(0);
+        world.advance(GameWorld.TICK_NANOS + GameWorld.TICK_NANOS / 2);
+
+        assertEquals(0.5f, world.getAlpha(), 0.001f);
+        assertTrue(world.getTubeRenderX(0) < before);
+        assertTrue(world.getTubeRenderX(0) > world.getTubeX(0));
+    }
+
+    @Test
+    public void queuedTap_actsOnTheTickItHappenedIn_whateverTheFrameRate() {
+        GameWorld slow = newWorld(7);
+        GameWorld fast = newWorld(7);
+        slow.advance(0);
+        fast.advance(0);
+        // 100 ms is inside the third tick, (80 ms, 120 ms].
+        slow.queueFlap(100_000_000L);
+        fast.queueFlap(100_000_000L);
+
+        for (int i = 1; i <= 25; i++) slow.advance(i * 40_000_000L);
+        for (int i = 1; i <= 120; i++) fast.advance(i * 1_000_000_000L / 120);
+
+        GameWorld direct = newWorld(7);
+        direct.tick();
+        direct.tick();
+        direct.flap();
+        while (direct.getTick() < 25) direct.tick();
+
+        assertEquals(direct.getKnightY(), slow.getKnightY());
+        assertEquals(direct.getKnightY(), fast.getKnightY());
+        assertEquals(direct.getVelocity(), fast.getVelocity());
+    }
+
+    @Test
+    public void queuedTap_latencyIsTheTimeToTheFrameShowingIt() {
+        GameWorld world = newWorld(7);
+        world.advance(0);
+        world.queueFlap(100_000_000L);
+        for (int i = 1; i <= 5; i++) world.advance(i * 40_000_000L);
+
+        assertEquals(1, world.getTapCount());
+        assertEquals(20_000_000L, world.getLastInputLatencyNanos());
+        assertEquals(20_000_000L, world.getMeanInputLatencyNanos());
+    }
+
+    @Test
+    public void tapsBeforeTheStart_areDropped() {
+        GameWorld world = new GameWorld(new Random(7));
+        world.setDimensions(1080, 2280, 108, 108, 180, 72, 72);
+        world.reset();
+        world.queueFlap(0);
+        world.advance(0);
+        world.start();
+        world.advance(40_000_000L);
+        world.advance(80_000_000L);
+
+        assertEquals(0, world.getTapCount());
+        assertTrue(world.getVelocity() > 0);
+    }
+
+    @Test
+    public void knightWithoutInput_fallsToGameOver() {
+        GameWorld world = newWorld(11);
+        for (int i = 0; i < 1000 && world.isRunning(); i++) {
+            world.tick();
+        }
+
+        assertTrue(world.isGameOver());
+        assertFalse(world.isRunning());
+    }
+
+    @Test
+    public void wideScreen_keepsCastlesComingAcrossTheWholeWidth() {
+        GameWorld world = new GameWorld(new Random(5));
+        world.setDimensions(4000, 2280, 108, 108, 180, 72, 72);
+        world.reset();
+        world.start();
+        ReferencePilot pilot = new ReferencePilot(0, 0, 60);
+        pilot.reset(5);
+
+        int most = 0;
+        for (int i = 0; i < 3000 && world.isRunning(); i++) {
+            if (pilot.shouldFlap(world)) world.flap();
+            world.tick();
+
+            int n = world.getTubeCount();
+            assertTrue(world.getTubeX(n - 1) > 4000);
+            for (int t = 1; t < n; t++) {
+                assertTrue(world.getTubeX(t) > world.getTubeX(t - 1));
+            }
+            most = Math.max(most, n);
+        }
+        assertTrue(world.getScore() > 0);
+        assertTrue(most >= 3);
+    }
+
+    @Test
+    public void fastCastle_cannotJumpOverTheKnight() {
+        // At 1000 px per tick the first castle goes from x = 1080 to x = 80 in one
+        // tick, past the knight at x = 270 without the end positions ever overlapping.
+        int survived = 0, crashed = 0;
+        for (long seed = 0; seed < 200; seed++) {
+            GameWorld world = new GameWorld(new Random(seed));
+            world.setDifficulty(Difficulty.DEFAULT.withCastleVelocity(1000));
+            world.setDimensions(1080, 2280, 108, 108, 180, 72, 72);
+            world.reset();
+            world.start();
+            int gapTop = world.getGapTop(0);
+            int gapBottom = gapTop + world.getGap(0);
+            world.tick();
+
+            // The knight moves from y = 1140 to 1143 during that tick.
+            if (gapTop <= 1140 && 1143 + 108 <= gapBottom) {
+                assertTrue(world.isRunning());
+                assertEquals(1, world.getScore());
+                survived++;
+            } else if (gapTop > 1143 || 1140 + 108 > gapBottom) {
+                assertTrue(world.isGameOver());
+                assertNotEquals(GameWorld.DeathCause.FLOOR, world.getDeathCause());
+                crashed++;
+            }
+        }
+        assertTrue(survived > 0 && crashed > 0);
+    }
+
+    @Test
+    public void crash_leavesTheKnightWhereItHit() {
+        GameWorld world = newWorld(2);
+        while (world.isRunning()) world.tick();
+
+        assertEquals(GameWorld.DeathCause.FLOOR, world.getDeathCause());
+        assertEquals(2280, world.getKnightY() + 108);
+    }
+
+    @Test
+    public void transparentRows_canLeaveTheScreen() {
+        CollisionMask mask = diamond(108, 108);
+        GameWorld boxes = newWorld(2);
+        GameWorld masked = newWorld(2);
+        masked.setCollisionMasks(mask, null);
+        while (boxes.isRunning()) boxes.tick();
+        while (masked.isRunning()) masked.tick();
+
+        assertEquals(GameWorld.DeathCause.FLOOR, masked.getDeathCause());
+        assertTrue(masked.getDeathTick() >= boxes.getDeathTick());
+        // The lowest solid row is the one that stops at the floor.
+        assertEquals(2280, masked.getKnightY() + mask.lastRow() + 1);
+    }
+
+    @Test
+    public void maskOfTheWrongSize_isRejected() {
+        try {
+            newWorld(1).setCollisionMasks(diamond(100, 108), null);
+            fail("mask size was accepted");
+        } catch (IllegalArgumentException expected) {
+            // fine
+        }
+    }
+
+    // Solid where |x - cx| + |y - cy| <= radius, so the corners are transparent.
+    private static CollisionMask diamond(int w, int h) {
+        int[] argb = new int[w * h];
+        int radius = Math.min(w, h) / 2 - 4;
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                if (Math.abs(x - w / 2) + Math.abs(y - h / 2) <= radius) argb[y * w + x] = 0xFF000000;
+            }
+        }
+        return CollisionMask.fromArgb(argb, w, h, CollisionMask.DEFAULT_ALPHA_THRESHOLD);
+    }
+}
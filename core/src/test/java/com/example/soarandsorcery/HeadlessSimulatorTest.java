@@ -0,0 +1,96 @@
+package com.example.soarandsorcery;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class HeadlessSimulatorTest {
+
+    private static final int[] NO_FLAPS = new int[0];
+
+    @Test
+    public void noInput_fallsToTheFloor() {
+        HeadlessSimulator.Result result = new HeadlessSimulator().run(1, NO_FLAPS, 10_000);
+
+        assertEquals(GameWorld.DeathCause.FLOOR, result.cause);
+        assertEquals(25, result.deathTick);
+        assertEquals(0, result.score);
+    }
+
+    @Test
+    public void flappingEveryTick_hitsTheCeiling() {
+        int[] flaps = new int[100];
+        for (int i = 0; i < flaps.length; i++) flaps[i] = i;
+
+        HeadlessSimulator.Result result = new HeadlessSimulator().run(1, flaps, 10_000);
+
+        assertEquals(GameWorld.DeathCause.CEILING, result.cause);
+        assertEquals(30, result.deathTick);
+    }
+
+    @Test
+    public void sameSeedAndScript_replayExactly() {
+        int[] script = recordAutopilot(99, 20_000);
+
+        HeadlessSimulator.Result first = new HeadlessSimulator().run(99, script, 20_000);
+        HeadlessSimulator.Result second = new HeadlessSimulator().run(99, script, 20_000);
+
+        assertTrue("autopilot should pass some castles", first.score > 0);
+        assertEquals(first.score, second.score);
+        assertEquals(first.deathTick, second.deathTick);
+        assertEquals(first.cause, second.cause);
+    }
+
+    @Test
+    public void differentSeeds_giveDifferentCourses() {
+        HeadlessSimulator a = new HeadlessSimulator();
+        HeadlessSimulator b = new HeadlessSimulator();
+        a.run(1, NO_FLAPS, 0);
+        b.run(2, NO_FLAPS, 0);
+
+        assertNotEquals(a.world().getGapTop(0), b.world().getGapTop(0));
+    }
+
+    @Test
+    public void throughput_isHundredsOfThousandsOfTicksPerSecond() {
+        HeadlessSimulator sim = new HeadlessSimulator();
+        int[] script = recordAutopilot(5, 5_000);
+
+        long ticks = 0;
+        long start = System.nanoTime();
+        for (int seed = 0; seed < 2_000; seed++) {
+            ticks += sim.run(seed, script, 5_000).ticks;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        assertTrue(ticks / seconds + " ticks/s", ticks / seconds > 200_000);
+    }
+
+    // Flaps whenever the knight is about to sink below the next gap, and records when it did.
+    private static int[] recordAutopilot(long seed, int maxTicks) {
+        HeadlessSimulator sim = new HeadlessSimulator();
+        GameWorld world = sim.world();
+        world.setSeed(seed);
+        world.reset();
+        world.start();
+
+        int knight = HeadlessSimulator.REFERENCE_WIDTH / 10;
+        int castle = HeadlessSimulator.REFERENCE_WIDTH / 6;
+        int[] flaps = new int[maxTicks];
+        int count = 0;
+
+        while (world.isRunning() && world.getTick() < maxTicks) {
+            int next = 0;
+            while (world.getTubeX(next) + castle < world.getKnightX()) next++;
+            int gapBottom = world.getGapTop(next) + world.getGap(next);
+            if (world.getVelocity() > 0 && world.getKnightY() + knight + 60 > gapBottom) {
+                world.flap();
+                flaps[count++] = (int) world.getTick();
+            }
+            world.tick();
+        }
+        return Arrays.copyOf(flaps, count);
+    }
+}
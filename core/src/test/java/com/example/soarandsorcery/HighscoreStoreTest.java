@@ -0,0 +1,143 @@
+package com.example.soarandsorcery;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HighscoreStoreTest {
+
+    // Runs queued writes only when asked, so tests see what is and is not on disk yet.
+    private final ArrayDeque<Runnable> writes = new ArrayDeque<>();
+
+    private void runWrites() {
+        while (!writes.isEmpty()) writes.poll().run();
+    }
+
+    private HighscoreStore open(File dir, int keep) throws IOException {
+        HighscoreStore store = new HighscoreStore(dir, keep, writes::add);
+        store.load();
+        return store;
+    }
+
+    @Test
+    public void top_keepsTheBestInOrderAndTurnsAwayTheRest() throws IOException {
+        HighscoreStore store = open(Files.createTempDirectory("scores").toFile(), 3);
+
+        assertEquals(0, store.add("AAA", 5, 1));
+        assertEquals(0, store.add("BBB", 12, 2));
+        assertEquals(2, store.add("CCC", 3, 3));
+        assertEquals(2, store.add("DDD", 5, 4)); // ties go after the earlier run
+        assertEquals(-1, store.add("EEE", 4, 5));
+        assertEquals(-1, store.add("FFF", 5, 6)); // equal to the cutoff is not enough
+
+        List<ScoreEntry> top = store.top();
+        assertEquals(3, top.size());
+        assertEquals("BBB", top.get(0).name);
+        assertEquals("AAA", top.get(1).name);
+        assertEquals("DDD", top.get(2).name);
+        assertEquals(5, store.cutoff());
+        assertEquals(6, store.runCount());
+    }
+
+    @Test
+    public void writes_happenBehindAndSurviveAReopen() throws IOException {
+        File dir = Files.createTempDirectory("scores").toFile();
+        HighscoreStore store = open(dir, 2);
+        store.add("AAA", 7, 1);
+        store.add("BBB", 9, 2);
+        store.add("CCC", 1, 3);
+        assertFalse(new File(dir, "top.bin").exists());
+        assertEquals(1, writes.size()); // one flush for the lot
+
+        runWrites();
+        assertEquals(4 + 2 * HighscoreStore.RECORD_BYTES, new File(dir, "top.bin").length());
+        assertEquals(4 + 3 * HighscoreStore.RECORD_BYTES, new File(dir, "history.bin").length());
+
+        HighscoreStore reopened = open(dir, 2);
+        assertEquals(3, reopened.runCount());
+        assertEquals("BBB", reopened.top().get(0).name);
+        assertEquals(7, reopened.cutoff());
+
+        List<Integer> scores = new ArrayList<>();
+        reopened.readHistory((name, score, millis) -> scores.add(score));
+        assertEquals(List.of(7, 9, 1), scores);
+    }
+
+    @Test
+    public void lostTopList_isRebuiltFromTheHistory() throws IOException {
+        File dir = Files.createTempDirectory("scores").toFile();
+        HighscoreStore store = open(dir, 2);
+        for (int i = 0; i < 10; i++) store.add("K" + i, i * 3 % 7, i);
+        runWrites();
+        assertTrue(new File(dir, "top.bin").delete());
+
+        HighscoreStore reopened = open(dir, 2);
+        assertEquals(6, reopened.top().get(0).score);
+        assertEquals("K2", reopened.top().get(0).name);
+        assertEquals(6, reopened.cutoff());
+        runWrites();
+        assertTrue(new File(dir, "top.bin").exists());
+    }
+
+    @Test
+    public void tornRecord_isDroppedAndLaterRunsStayAligned() throws IOException {
+        File dir = Files.createTempDirectory("scores").toFile();
+        HighscoreStore store = open(dir, 5);
+        store.add("AAA", 4, 1);
+        runWrites();
+        try (RandomAccessFile f = new RandomAccessFile(new File(dir, "history.bin"), "rw")) {
+            f.seek(f.length());
+            f.write(new byte[] { 0, 0, 0 }); // a crash in the middle of the next record
+        }
+
+        HighscoreStore reopened = open(dir, 5);
+        assertEquals(1, reopened.runCount());
+        reopened.add("BBB", 8, 2);
+        runWrites();
+
+        List<String> names = new ArrayList<>();
+        reopened.readHistory((name, score, millis) -> names.add(name + score));
+        assertEquals(List.of("AAA4", "BBB8"), names);
+    }
+
+    @Test
+    public void ranks_countEveryRunOnceAfterAReopen() throws IOException {
+        File dir = Files.createTempDirectory("scores").toFile();
+        HighscoreStore store = open(dir, 2);
+        assertTrue(store.isIndexed());
+        for (int i = 1; i <= 10; i++) store.add("R" + i, i, i);
+        runWrites();
+
+        HighscoreStore reopened = open(dir, 2);
+        assertFalse(reopened.isIndexed());
+        reopened.add("NEW", 4, 11); // lands between load and the history being read
+        runWrites();
+
+        assertTrue(reopened.isIndexed());
+        assertEquals(11, reopened.runCount());
+        assertEquals(7, reopened.rankOf(4)); // 5..10 scored more
+        assertEquals(300.0 / 11, reopened.percentile(4), 1e-9);
+        assertEquals(4, reopened.range(3, 5));
+    }
+
+    @Test
+    public void longOrOddNames_areCutToFourAscii() throws IOException {
+        File dir = Files.createTempDirectory("scores").toFile();
+        HighscoreStore store = open(dir, 5);
+        store.add("KNIGHTLY", 1, 1);
+        store.add("É", 2, 2);
+        runWrites();
+
+        List<ScoreEntry> top = open(dir, 5).top();
+        assertEquals("?", top.get(0).name);
+        assertEquals("KNIG", top.get(1).name);
+    }
+}
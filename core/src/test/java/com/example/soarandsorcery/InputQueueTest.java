@@ -0,0 +1,38 @@
+package com.example.soarandsorcery;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class InputQueueTest {
+
+    @Test
+    public void times_comeOutInOrderAndAFullQueueDropsTaps() {
+        InputQueue queue = new InputQueue(2);
+        assertTrue(queue.isEmpty());
+        assertTrue(queue.offer(10));
+        assertTrue(queue.offer(20));
+        assertFalse(queue.offer(30));
+
+        assertEquals(10, queue.peek());
+        queue.remove();
+        assertTrue(queue.offer(30));
+        assertEquals(20, queue.peek());
+        queue.remove();
+        assertEquals(30, queue.peek());
+        queue.remove();
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void clear_dropsEverythingQueued() {
+        InputQueue queue = new InputQueue(4);
+        queue.offer(1);
+        queue.offer(2);
+        queue.clear();
+
+        assertTrue(queue.isEmpty());
+        assertTrue(queue.offer(3));
+        assertEquals(3, queue.peek());
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.soarandsorcery;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LeaderboardCacheTest {
+
+    private static final long TTL = 60_000_000_000L;
+
+    private long now = 0;
+
+    private static final WorldLeaderboard.Callback<Void> SAVED = new WorldLeaderboard.Callback<Void>() {
+        @Override
+        public void onResult(Void result) {
+        }
+
+        @Override
+        public void onError(Exception e) {
+            fail(e.toString());
+        }
+    };
+
+    private LocalLeaderboard board(int... scores) throws IOException {
+        HighscoreStore store = new HighscoreStore(Files.createTempDirectory("world").toFile(), 10, Runnable::run);
+        store.load();
+        for (int i = 0; i < scores.length; i++) store.add("P" + i, scores[i], i);
+        return new LocalLeaderboard(store);
+    }
+
+    private LeaderboardCache cache(LocalLeaderboard board) {
+        return new LeaderboardCache(board, 3, TTL, () -> now);
+    }
+
+    private static List<ScoreEntry> top(LeaderboardCache cache) {
+        List<List<ScoreEntry>> out = new ArrayList<>();
+        cache.top(new WorldLeaderboard.Callback<List<ScoreEntry>>() {
+            @Override
+            public void onResult(List<ScoreEntry> result) {
+                out.add(result);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                out.add(null);
+            }
+        });
+        assertEquals(1, out.size());
+        return out.get(0);
+    }
+
+    @Test
+    public void top_isFetchedOncePerTimeToLive() throws IOException {
+        LocalLeaderboard board = board(5, 9, 7, 1);
+        LeaderboardCache cache = cache(board);
+        assertNull(cache.cached());
+
+        assertEquals(9, top(cache).get(0).score);
+        now += TTL - 1;
+        assertEquals(5, top(cache).get(2).score);
+        assertEquals(1, board.fetchCount());
+
+        now += 1;
+        top(cache);
+        assertEquals(2, board.fetchCount());
+    }
+
+    @Test
+    public void mayQualify_trustsEvenAStaleCutoff() throws IOException {
+        LocalLeaderboard board = board(5, 9, 7);
+        LeaderboardCache cache = cache(board);
+        assertTrue(cache.mayQualify(0)); // nothing known yet
+        top(cache);
+
+        now += 10 * TTL;
+        assertFalse(cache.mayQualify(5));
+        assertTrue(cache.mayQualify(6));
+        assertEquals(1, board.fetchCount());
+
+        LeaderboardCache shortList = cache(board(4, 2));
+        top(shortList);
+        assertTrue(shortList.mayQualify(0));
+    }
+
+    @Test
+    public void submittedRuns_joinTheSnapshot() throws IOException {
+        LeaderboardCache cache = cache(board(5, 9, 7));
+        top(cache);
+
+        cache.recordSubmitted(List.of(new ScoreEntry("NEW", 8), new ScoreEntry("TIE", 9)));
+        List<ScoreEntry> top = cache.cached();
+        assertEquals(3, top.size());
+        assertEquals("P1", top.get(0).name);
+        assertEquals("TIE", top.get(1).name);
+        assertEquals("NEW", top.get(2).name);
+    }
+
+    @Test
+    public void liveUpdates_becomeTheSnapshotUntilRemoved() throws IOException {
+        LocalLeaderboard board = board(5, 9, 7);
+        LeaderboardCache cache = cache(board);
+        List<Integer> bests = new ArrayList<>();
+        WorldLeaderboard.Registration live = cache.listen(new WorldLeaderboard.Callback<List<ScoreEntry>>() {
+            @Override
+            public void onResult(List<ScoreEntry> result) {
+                bests.add(result.get(0).score);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                bests.add(null);
+            }
+        });
+        assertEquals(List.of(9), bests);
+        assertFalse(cache.mayQualify(5));
+
+        board.submitAll(List.of(new ScoreEntry("NEW", 12)), SAVED);
+        assertEquals(List.of(9, 12), bests);
+        assertEquals(7, cache.cached().get(2).score);
+        top(cache);
+        assertEquals(0, board.fetchCount()); // the live snapshot is fresh
+
+        live.remove();
+        board.submitAll(List.of(new ScoreEntry("OLD", 3)), SAVED);
+        assertEquals(2, bests.size());
+    }
+
+    @Test
+    public void offline_answersTheLastSnapshot() throws IOException {
+        LocalLeaderboard board = board(5, 9, 7);
+        LeaderboardCache cache = cache(board);
+        board.setOnline(false);
+        assertNull(top(cache));
+
+        board.setOnline(true);
+        top(cache);
+        board.setOnline(false);
+        now += TTL;
+        assertEquals(9, top(cache).get(0).score);
+    }
+}
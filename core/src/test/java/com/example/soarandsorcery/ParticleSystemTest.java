@@ -0,0 +1,131 @@
+package com.example.soarandsorcery;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class ParticleSystemTest {
+
+    @Test
+    public void burst_fillsUpToCapacityAndExpires() {
+        ParticleSystem particles = new ParticleSystem(100);
+        assertEquals(60, particles.burst(0, 0, 60, 4, 0, 0, ParticleSystem.GOLD, 9));
+        assertEquals(40, particles.burst(0, 0, 60, 4, 0, 0, ParticleSystem.STAR, 30));
+        assertEquals(100, particles.count());
+
+        // Gold lives 6..11 ticks, stars 20..39.
+        for (int i = 0; i < 12; i++) particles.tick();
+        assertEquals(40, particles.count());
+        float[] points = new float[200];
+        assertEquals(0, particles.fillPoints(ParticleSystem.GOLD, points));
+        assertEquals(80, particles.fillPoints(ParticleSystem.STAR, points));
+
+        for (int i = 0; i < 40; i++) particles.tick();
+        assertEquals(0, particles.count());
+    }
+
+    @Test
+    public void points_areInterpolatedAndFallWithGravity() {
+        ParticleSystem particles = new ParticleSystem(1);
+        particles.setGravity(2);
+        particles.burst(100, 100, 1, 0, 5, 0, ParticleSystem.EMBER, 30);
+
+        particles.tick();
+        particles.setAlpha(0.5f);
+        float[] points = new float[2];
+        assertEquals(2, particles.fillPoints(ParticleSystem.EMBER, points));
+        assertEquals(102.5f, points[0], 1e-3f);
+        assertEquals(101f, points[1], 1e-3f);
+    }
+
+    @Test
+    public void world_burstsOnCrashAndMilestones() {
+        GameWorld world = new GameWorld(new Random(3));
+        world.setDimensions(1080, 2280, 108, 108, 180, 72, 72);
+        ParticleSystem particles = new ParticleSystem(4096);
+        world.setParticles(particles);
+        ReferencePilot pilot = new ReferencePilot(0, 0, 60);
+        world.reset();
+        world.start();
+        pilot.reset(3);
+
+        float[] points = new float[2 * particles.capacity()];
+        boolean sawStars = false;
+        while (world.isRunning() && world.getScore() < 25) {
+            if (pilot.shouldFlap(world)) world.flap();
+            world.tick();
+            sawStars |= particles.fillPoints(ParticleSystem.STAR, points) > 0;
+        }
+        assertTrue(sawStars);
+
+        particles.clear();
+        while (world.isRunning()) world.tick();
+        assertTrue(particles.fillPoints(ParticleSystem.EMBER, points) > 0);
+        assertTrue(particles.fillPoints(ParticleSystem.SMOKE, points) > 0);
+
+        world.reset();
+        assertEquals(0, particles.count());
+    }
+
+    @Test
+    public void crashBurst_fliesOnAfterTheRunAndSkipsPauses() {
+        GameWorld world = new GameWorld(new Random(4));
+        world.setDimensions(1080, 2280, 108, 108, 180, 72, 72);
+        ParticleSystem particles = new ParticleSystem(4096);
+        world.setParticles(particles);
+        world.reset();
+        world.start();
+
+        long now = 0;
+        while (world.isRunning()) world.advance(now += GameWorld.TICK_NANOS);
+        float[] before = new float[2 * particles.capacity()];
+        int n = particles.fillPoints(ParticleSystem.EMBER, before);
+        assertTrue(n > 0);
+
+        // Away for a minute: the clock is reset, so the sparks do not catch up on the way back.
+        world.resetClock();
+        now += 60_000_000_000L;
+        world.advance(now);
+        float[] after = new float[2 * particles.capacity()];
+        assertEquals(n, particles.fillPoints(ParticleSystem.EMBER, after));
+        assertArrayEquals(before, after, 0f);
+
+        world.advance(now + GameWorld.TICK_NANOS / 2);
+        assertEquals(0.5f, particles.getAlpha(), 1e-3f);
+        for (int i = 0; i < 60; i++) world.advance(now += GameWorld.TICK_NANOS);
+        assertEquals(0, particles.count());
+    }
+
+    @Test
+    public void thousandsOfParticles_allocateNothing() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        ParticleSystem particles = new ParticleSystem(4096);
+        float[] points = new float[2 * particles.capacity()];
+        Random random = new Random(5);
+        run(particles, points, random, 20_000);
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        run(particles, points, random, 100_000);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    // Ticks that keep the pool near full with a burst every few of them.
+    private static void run(ParticleSystem particles, float[] points, Random random, int ticks) {
+        for (int f = 0; f < ticks; f++) {
+            if (f % 4 == 0) particles.burst(random.nextInt(1080), random.nextInt(2280), 400, 12, -8, 0, f / 4 % ParticleSystem.COLORS, 20);
+            particles.tick();
+            for (int c = 0; c < ParticleSystem.COLORS; c++) particles.fillPoints(c, points);
+        }
+    }
+}
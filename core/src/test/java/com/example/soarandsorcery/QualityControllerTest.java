@@ -0,0 +1,98 @@
+package com.example.soarandsorcery;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class QualityControllerTest {
+
+    private static final long PERIOD = 16_666_667L;
+
+    private long now;
+
+    // Frames at the display rate, each costing workNanos; every third one missing a vsync if janky.
+    private int run(QualityController quality, int windows, long workNanos, boolean janky) {
+        int changes = 0;
+        for (int i = 0; i < windows * QualityController.WINDOW; i++) {
+            now += janky && i % 3 == 0 ? 2 * PERIOD : PERIOD;
+            if (quality.onFrame(now, workNanos)) changes++;
+        }
+        return changes;
+    }
+
+    @Test
+    public void slowFrames_dropEffectsBeforeResolution() {
+        QualityController quality = new QualityController(PERIOD);
+        assertEquals(1f, quality.getRenderScale(), 0f);
+        assertEquals(QualityController.EFFECTS_ALL, quality.getEffects());
+
+        run(quality, 1, PERIOD, false);
+        assertEquals(1, quality.getLevel());
+        assertEquals(1f, quality.getRenderScale(), 0f);
+        assertEquals(QualityController.EFFECTS_SOME, quality.getEffects());
+
+        run(quality, 1, PERIOD, false); // the switch's own window is not judged
+        assertEquals(1, quality.getLevel());
+        run(quality, 1, PERIOD, false);
+        assertEquals(2, quality.getLevel());
+        assertTrue(quality.getRenderScale() < 1f);
+    }
+
+    @Test
+    public void jank_stepsDownEvenWhenTheCpuIsIdle() {
+        QualityController quality = new QualityController(PERIOD);
+        run(quality, 1, PERIOD / 10, true);
+        assertEquals(1, quality.getLevel());
+    }
+
+    @Test
+    public void lowestLevel_isAFloor() {
+        QualityController quality = new QualityController(PERIOD);
+        run(quality, 100, 2 * PERIOD, true);
+        assertEquals(quality.getLevels() - 1, quality.getLevel());
+        assertEquals(0.5f, quality.getRenderScale(), 0f);
+        assertEquals(QualityController.EFFECTS_NONE, quality.getEffects());
+    }
+
+    @Test
+    public void headroom_stepsBackUpAfterQuietWindows() {
+        QualityController quality = new QualityController(PERIOD);
+        run(quality, 1, PERIOD, false);
+        assertEquals(1, quality.getLevel());
+
+        run(quality, QualityController.CALM_WINDOWS, PERIOD / 10, false); // one of them settles
+        assertEquals(1, quality.getLevel());
+        run(quality, 1, PERIOD / 10, false);
+        assertEquals(0, quality.getLevel());
+    }
+
+    @Test
+    public void fallingBackRightAfterAnUpgrade_waitsLongerNextTime() {
+        QualityController quality = new QualityController(PERIOD);
+        run(quality, 1, PERIOD, false);
+        run(quality, 1 + QualityController.CALM_WINDOWS, PERIOD / 10, false);
+        assertEquals(0, quality.getLevel());
+
+        run(quality, 2, PERIOD, false); // settle, then too slow again
+        assertEquals(1, quality.getLevel());
+
+        run(quality, 1 + QualityController.CALM_WINDOWS, PERIOD / 10, false);
+        assertEquals(1, quality.getLevel());
+        run(quality, QualityController.CALM_WINDOWS, PERIOD / 10, false);
+        assertEquals(0, quality.getLevel());
+    }
+
+    @Test
+    public void breakSequence_doesNotCountThePauseAsJank() {
+        QualityController quality = new QualityController(PERIOD);
+        for (int i = 0; i < QualityController.WINDOW; i++) {
+            if (i == 10) {
+                quality.breakSequence();
+                now += 100 * PERIOD;
+            }
+            now += PERIOD;
+            quality.onFrame(now, PERIOD / 10);
+        }
+        assertEquals(0, quality.getLevel());
+    }
+}
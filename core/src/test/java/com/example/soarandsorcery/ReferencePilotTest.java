@@ -0,0 +1,57 @@
+package com.example.soarandsorcery;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ReferencePilotTest {
+
+    @Test
+    public void exactPilot_passesCastles() {
+        HeadlessSimulator.Result result = new HeadlessSimulator().run(3, new ReferencePilot(0, 0, 60), 5_000);
+
+        assertTrue(result.toString(), result.score >= 10);
+    }
+
+    @Test
+    public void sameSeed_playsTheSameRunWithNoise() {
+        HeadlessSimulator sim = new HeadlessSimulator();
+        ReferencePilot pilot = new ReferencePilot(150, 60, 60);
+
+        HeadlessSimulator.Result first = sim.run(8, pilot, 20_000);
+        HeadlessSimulator.Result second = sim.run(8, pilot, 20_000);
+
+        assertEquals(first.score, second.score);
+        assertEquals(first.deathTick, second.deathTick);
+        assertEquals(first.cause, second.cause);
+    }
+
+    @Test
+    public void slowReactions_scoreLessOnAverage() {
+        HeadlessSimulator sim = new HeadlessSimulator();
+        ReferencePilot sharp = new ReferencePilot(0, 0, 60);
+        ReferencePilot sloppy = new ReferencePilot(200, 80, 60);
+
+        long sharpTotal = 0, sloppyTotal = 0;
+        for (int seed = 0; seed < 200; seed++) {
+            sharpTotal += sim.run(seed, sharp, 5_000).score;
+            sloppyTotal += sim.run(seed, sloppy, 5_000).score;
+        }
+
+        assertTrue(sharpTotal + " vs " + sloppyTotal, sharpTotal > sloppyTotal);
+    }
+
+    @Test
+    public void difficulty_changesTheRules() {
+        Difficulty heavy = Difficulty.DEFAULT.withGravity(6);
+        HeadlessSimulator normal = new HeadlessSimulator();
+        HeadlessSimulator fast = new HeadlessSimulator(
+                HeadlessSimulator.REFERENCE_WIDTH, HeadlessSimulator.REFERENCE_HEIGHT, heavy);
+
+        long normalFall = normal.run(1, new int[0], 10_000).deathTick;
+        long heavyFall = fast.run(1, new int[0], 10_000).deathTick;
+
+        assertTrue(heavyFall < normalFall);
+        assertEquals(Difficulty.DEFAULT.toString(), normal.world().getDifficulty().toString());
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.soarandsorcery;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ReplayStoreTest {
+
+    @Test
+    public void keepsOnlyTheBestRuns() throws IOException {
+        File dir = Files.createTempDirectory("replays").toFile();
+        ReplayStore store = new ReplayStore(dir, 3);
+
+        assertTrue(store.save(run(5, 1)));
+        assertTrue(store.save(run(12, 2)));
+        assertTrue(store.save(run(8, 3)));
+        assertFalse(store.save(run(4, 4)));
+        assertTrue(store.save(run(9, 5)));
+        assertTrue(store.save(run(12, 6)));
+
+        List<File> best = store.best();
+        assertEquals(3, best.size());
+        assertEquals(3, dir.listFiles().length);
+        int[] expected = {12, 12, 9};
+        for (int i = 0; i < 3; i++) {
+            try (ReplayReader reader = store.open(best.get(i))) {
+                assertEquals(expected[i], reader.score);
+            }
+        }
+        // The first run to reach a score stays ahead of later ties.
+        try (ReplayReader reader = store.open(best.get(0))) {
+            assertEquals(2, reader.seed);
+        }
+    }
+
+    @Test
+    public void strayFiles_areIgnored() throws IOException {
+        File dir = Files.createTempDirectory("replays").toFile();
+        assertTrue(new File(dir, "notes.txt").createNewFile());
+        assertTrue(new File(dir, "run-7-x.rpl").createNewFile());
+        ReplayStore store = new ReplayStore(dir, 2);
+        store.save(run(3, 1));
+
+        assertEquals(1, store.best().size());
+    }
+
+    private static Replay run(int score, long seed) {
+        int[] layout = {1080, 2280, 108, 108, 180, 72, 72};
+        return new Replay(seed, layout, Difficulty.DEFAULT, score, 500, new int[] {10, 20, 35});
+    }
+}
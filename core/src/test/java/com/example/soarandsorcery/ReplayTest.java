@@ -0,0 +1,116 @@
+package com.example.soarandsorcery;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class ReplayTest {
+
+    @Test
+    public void run_isAFewHundredBytesAndReadsBackTheSame() throws IOException {
+        HeadlessSimulator sim = new HeadlessSimulator();
+        sim.run(12, new ReferencePilot(0, 0, 60), 5_000);
+        Replay replay = Replay.record(sim.world());
+        byte[] bytes = replay.toBytes();
+
+        assertTrue("flaps " + replay.flapCount(), replay.flapCount() > 50);
+        assertTrue(bytes.length + " bytes", bytes.length < 40 + 2 * replay.flapCount());
+
+        Replay back = Replay.readFrom(new ByteArrayInputStream(bytes));
+        assertEquals(replay.seed, back.seed);
+        assertEquals(replay.difficulty, back.difficulty);
+        assertEquals(replay.score, back.score);
+        assertEquals(replay.ticks, back.ticks);
+        assertArrayEquals(replay.layout, back.layout);
+        assertEquals(replay.flapCount(), back.flapCount());
+        for (int i = 0; i < replay.flapCount(); i++) assertEquals(replay.flapTick(i), back.flapTick(i));
+    }
+
+    @Test
+    public void ghost_fliesTheRecordedRunTickForTick() throws IOException {
+        HeadlessSimulator sim = new HeadlessSimulator();
+        GameWorld live = sim.world();
+        ReferencePilot pilot = new ReferencePilot(120, 40, 60);
+        live.setSeed(4);
+        live.reset();
+        live.start();
+        pilot.reset(4);
+        int[] heights = new int[20_000];
+        while (live.isRunning() && live.getTick() < heights.length) {
+            if (pilot.shouldFlap(live)) live.flap();
+            live.tick();
+            heights[(int) live.getTick() - 1] = live.getKnightY();
+        }
+        long end = live.getTick();
+        byte[] bytes = Replay.record(live).toBytes();
+
+        Ghost ghost = new Ghost(new ReplayReader(new ByteArrayInputStream(bytes)), new HeadlessSimulator().world());
+        for (long t = 1; t <= end; t++) {
+            ghost.syncTo(t);
+            assertEquals("tick " + t, heights[(int) t - 1], ghost.getKnightY());
+        }
+        assertFalse(ghost.isFlying());
+        assertEquals(live.getScore(), ghost.getScore());
+    }
+
+    @Test
+    public void runMadeOnAnAsyncCourse_isFlownTheSameByItsGhost() throws IOException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            HeadlessSimulator sim = new HeadlessSimulator();
+            sim.world().setCourseExecutor(executor);
+            ReferencePilot pilot = new ReferencePilot(120, 40, 60);
+            for (long seed = 1; seed <= 20; seed++) {
+                sim.run(seed, pilot, 20_000);
+                Replay replay = Replay.record(sim.world());
+
+                GameWorld world = new HeadlessSimulator().world();
+                Ghost ghost = new Ghost(new ReplayReader(new ByteArrayInputStream(replay.toBytes())), world);
+                ghost.syncTo(replay.ticks);
+                assertEquals("seed " + seed, replay.score, ghost.getScore());
+                assertEquals("seed " + seed, replay.ticks, world.getTick());
+                ghost.close();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void replayFromAnotherLayout_doesNotFit() throws IOException {
+        HeadlessSimulator sim = new HeadlessSimulator();
+        sim.run(1, new int[] {3, 9}, 100);
+        byte[] bytes = Replay.record(sim.world()).toBytes();
+
+        ReplayReader reader = new ReplayReader(new ByteArrayInputStream(bytes));
+        assertTrue(reader.fits(new HeadlessSimulator().world()));
+        assertFalse(reader.fits(new HeadlessSimulator(720, 1280).world()));
+        assertFalse(reader.fits(new HeadlessSimulator(1080, 2280, Difficulty.DEFAULT.withGravity(4)).world()));
+        try {
+            new Ghost(reader, new HeadlessSimulator(720, 1280).world());
+            fail("ghost accepted another layout");
+        } catch (IllegalArgumentException expected) {
+            // fine
+        }
+    }
+
+    @Test
+    public void truncatedReplay_failsToRead() {
+        HeadlessSimulator sim = new HeadlessSimulator();
+        sim.run(1, new int[] {3, 9, 15, 20}, 100);
+        byte[] bytes = Replay.record(sim.world()).toBytes();
+
+        try {
+            Replay.readFrom(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 2)));
+            fail("read a cut off replay");
+        } catch (IOException expected) {
+            // fine
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.soarandsorcery;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ScoreIndexTest {
+
+    @Test
+    public void queries_matchCountingByHand() {
+        Random random = new Random(8);
+        ScoreIndex index = new ScoreIndex();
+        int[] scores = new int[5000];
+        for (int i = 0; i < scores.length; i++) {
+            // Mostly low scores with a long tail, past the first 1024 buckets.
+            scores[i] = random.nextInt(10) == 0 ? random.nextInt(5000) : random.nextInt(60);
+            index.add(scores[i]);
+        }
+
+        assertEquals(scores.length, index.count());
+        for (int q : new int[] { 0, 1, 7, 30, 59, 60, 1023, 1024, 2500, 4999, 10_000 }) {
+            long below = 0, above = 0;
+            for (int s : scores) {
+                if (s < q) below++;
+                if (s > q) above++;
+            }
+            assertEquals("below " + q, below, index.countBelow(q));
+            assertEquals("rank " + q, above + 1, index.rankOf(q));
+            assertEquals(100.0 * below / scores.length, index.percentile(q), 1e-9);
+        }
+
+        long inRange = 0;
+        for (int s : scores) if (s >= 10 && s <= 3000) inRange++;
+        assertEquals(inRange, index.range(10, 3000));
+        assertEquals(0, index.range(3000, 10));
+    }
+
+    @Test
+    public void addAll_isTheSameAsAddingEachRun() {
+        ScoreIndex small = new ScoreIndex();
+        ScoreIndex large = new ScoreIndex();
+        ScoreIndex both = new ScoreIndex();
+        for (int i = 0; i < 300; i++) {
+            small.add(i % 40);
+            both.add(i % 40);
+            large.add(i * 37);
+            both.add(i * 37);
+        }
+
+        ScoreIndex merged = new ScoreIndex();
+        merged.add(5);
+        both.add(5);
+        merged.addAll(large);
+        merged.addAll(small);
+
+        assertEquals(both.count(), merged.count());
+        for (int q = 0; q < 12_000; q += 13) {
+            assertEquals(both.countAtMost(q), merged.countAtMost(q));
+        }
+    }
+
+    @Test
+    public void emptyIndex_ranksFirstAtZeroPercent() {
+        ScoreIndex index = new ScoreIndex();
+        assertEquals(1, index.rankOf(10));
+        assertEquals(0, index.percentile(10), 0);
+        assertEquals(0, index.countBelow(-3));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.soarandsorcery;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SpscQueueTest {
+
+    @Test
+    public void offerAndPoll_areFifoAndBounded() {
+        SpscQueue<Integer> queue = new SpscQueue<>(3);
+        assertEquals(4, queue.capacity());
+        assertNull(queue.poll());
+
+        for (int i = 0; i < 4; i++) assertTrue(queue.offer(i));
+        assertTrue(queue.isFull());
+        assertFalse(queue.offer(4));
+
+        assertEquals(Integer.valueOf(0), queue.poll());
+        assertTrue(queue.offer(4));
+        for (int i = 1; i <= 4; i++) assertEquals(Integer.valueOf(i), queue.poll());
+        assertNull(queue.poll());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void twoThreads_seeEveryElementOnceInOrder() throws InterruptedException {
+        final int count = 1_000_000;
+        SpscQueue<Integer> queue = new SpscQueue<>(64);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                Integer boxed = i;
+                while (!queue.offer(boxed)) Thread.yield();
+            }
+        });
+        producer.start();
+
+        for (int expected = 0; expected < count; ) {
+            Integer i = queue.poll();
+            if (i == null) {
+                Thread.yield();
+                continue;
+            }
+            assertEquals(expected, i.intValue());
+            expected++;
+        }
+        producer.join();
+        assertNull(queue.poll());
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.soarandsorcery;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SweepTest {
+
+    @Test
+    public void passingClean_through_isAHit() {
+        // A 10 px box moving 100 px right jumps over a 20 px wall; the end positions never overlap.
+        float t = Sweep.timeOfImpact(0, 0, 10, 10, 100, 0, 40, 0, 20, 10);
+
+        assertEquals(0.3f, t, 1e-6f);
+    }
+
+    @Test
+    public void touchingEdges_isNotAHit() {
+        assertEquals(Sweep.NO_HIT, Sweep.timeOfImpact(0, 0, 10, 10, 30, 0, 40, 0, 20, 10), 0f);
+        assertEquals(Sweep.NO_HIT, Sweep.timeOfImpact(0, 0, 10, 10, 100, 0, 40, 10, 20, 10), 0f);
+    }
+
+    @Test
+    public void alreadyOverlapping_hitsAtStart() {
+        assertEquals(0f, Sweep.timeOfImpact(0, 0, 10, 10, 0, 5, 5, 5, 10, 10), 0f);
+    }
+
+    @Test
+    public void diagonalMove_usesLaterAxisEntry() {
+        // x overlap starts at t = 0.2, y overlap at t = 0.5.
+        float t = Sweep.timeOfImpact(0, 0, 10, 10, 50, 40, 20, 30, 40, 40);
+
+        assertEquals(0.5f, t, 1e-6f);
+    }
+
+    @Test
+    public void movingAway_misses() {
+        assertEquals(Sweep.NO_HIT, Sweep.timeOfImpact(0, 0, 10, 10, -50, 0, 20, 0, 10, 10), 0f);
+        assertEquals(Sweep.NO_HIT, Sweep.timeOfImpact(0, 0, 10, 10, 0, 50, 20, 0, 10, 10), 0f);
+    }
+}
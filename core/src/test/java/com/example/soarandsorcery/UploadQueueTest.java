@@ -0,0 +1,155 @@
+package com.example.soarandsorcery;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class UploadQueueTest {
+
+    private static final long TTL = 60_000_000_000L;
+
+    private long now = 0;
+    // Retries the queue asked for, run only when a test says so.
+    private final List<Runnable> retries = new ArrayList<>();
+    private final List<Long> delays = new ArrayList<>();
+
+    private HighscoreStore world;
+    private LocalLeaderboard board;
+    private LeaderboardCache cache;
+
+    private void board(int... scores) throws IOException {
+        world = new HighscoreStore(Files.createTempDirectory("world").toFile(), 10, Runnable::run);
+        world.load();
+        for (int i = 0; i < scores.length; i++) world.add("P" + i, scores[i], i);
+        board = new LocalLeaderboard(world);
+        cache = new LeaderboardCache(board, 3, TTL, () -> now);
+    }
+
+    private UploadQueue queue(File file) {
+        UploadQueue queue = new UploadQueue(file, board, cache, Runnable::run, (task, delay) -> {
+            retries.add(task);
+            delays.add(delay);
+        });
+        queue.load();
+        return queue;
+    }
+
+    private void runRetries() {
+        List<Runnable> due = new ArrayList<>(retries);
+        retries.clear();
+        for (Runnable r : due) r.run();
+    }
+
+    private static File file() throws IOException {
+        return new File(Files.createTempDirectory("uploads").toFile(), "pending.bin");
+    }
+
+    @Test
+    public void offline_keepsTheBestRunPerNicknameAndSendsOneBatch() throws IOException {
+        board(5, 9, 7);
+        board.setOnline(false);
+        UploadQueue queue = queue(file());
+        List<String> sent = new ArrayList<>();
+        queue.setOnSentListener(batch -> {
+            for (ScoreEntry e : batch) sent.add(e.name + e.score);
+        });
+
+        assertTrue(queue.offer(new ScoreEntry("AAA", 12)));
+        assertTrue(queue.offer(new ScoreEntry("BBB", 8)));
+        assertFalse(queue.offer(new ScoreEntry("AAA", 10)));
+        assertTrue(queue.offer(new ScoreEntry("AAA", 20)));
+        assertEquals(2, queue.pending().size());
+        assertEquals(1, retries.size()); // failures wait on the one retry
+        assertTrue(sent.isEmpty());
+
+        board.setOnline(true);
+        runRetries();
+        assertEquals(1, board.submitCount());
+        assertEquals(List.of("AAA20", "BBB8"), sent);
+        assertTrue(queue.pending().isEmpty());
+
+        List<ScoreEntry> top = world.top();
+        assertEquals("AAA", top.get(0).name);
+        assertEquals(20, top.get(0).score);
+        assertEquals(5, top.size());
+        assertEquals("BBB", cache.cached().get(2).name);
+    }
+
+    @Test
+    public void failures_backOffExponentiallyUntilConnected() throws IOException {
+        board(5, 9, 7);
+        board.setOnline(false);
+        UploadQueue queue = queue(file());
+        queue.offer(new ScoreEntry("AAA", 12));
+        for (int i = 0; i < 12; i++) runRetries();
+
+        assertEquals(2_000L, (long) delays.get(0));
+        assertEquals(4_000L, (long) delays.get(1));
+        assertEquals(8_000L, (long) delays.get(2));
+        assertEquals(UploadQueue.MAX_RETRY_MILLIS, (long) delays.get(delays.size() - 1));
+
+        board.setOnline(true);
+        queue.onConnected();
+        assertTrue(queue.pending().isEmpty());
+        assertEquals(12, world.top().get(0).score);
+    }
+
+    @Test
+    public void lowScores_areNeverQueued() throws IOException {
+        board(5, 9, 7);
+        UploadQueue queue = queue(file());
+        cache.top(new WorldLeaderboard.Callback<List<ScoreEntry>>() {
+            @Override
+            public void onResult(List<ScoreEntry> result) {
+            }
+
+            @Override
+            public void onError(Exception e) {
+                fail("fetch failed");
+            }
+        });
+
+        assertFalse(queue.offer(new ScoreEntry("LOW", 5)));
+        assertTrue(queue.pending().isEmpty());
+        assertEquals(1, board.fetchCount());
+        assertEquals(0, board.submitCount());
+    }
+
+    @Test
+    public void queuedRuns_surviveARestartAndAreCheckedAgainstTheNewCutoff() throws IOException {
+        board(5, 9, 7);
+        board.setOnline(false);
+        File file = file();
+        UploadQueue queue = queue(file);
+        queue.offer(new ScoreEntry("AAA", 6, 1));
+        queue.offer(new ScoreEntry("BBB", 30, 1234567890123L));
+        assertTrue(file.isFile());
+
+        retries.clear(); // the process dies
+
+        // Others beat the first run while this one was away.
+        world.add("X", 20, 10);
+        world.add("Y", 21, 11);
+        now += TTL;
+
+        UploadQueue restarted = queue(file); // still offline, so they wait
+        List<ScoreEntry> waiting = restarted.pending();
+        assertEquals(2, waiting.size());
+        assertEquals(1234567890123L, waiting.get(1).millis);
+
+        board.setOnline(true);
+        runRetries();
+        assertTrue(restarted.pending().isEmpty());
+        assertEquals(1, board.submitCount());
+        assertFalse(file.exists());
+        List<ScoreEntry> top = world.top();
+        assertEquals("BBB", top.get(0).name);
+        for (ScoreEntry e : top) assertNotEquals("AAA", e.name);
+    }
+}
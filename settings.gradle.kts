@@ -21,3 +21,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "Soar and Sorcery"
 include(":app")
+include(":core")
+include(":tuning")
+include(":benchmark")
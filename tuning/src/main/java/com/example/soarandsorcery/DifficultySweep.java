@@ -0,0 +1,238 @@
+package com.example.soarandsorcery;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Command line parameter sweep over the difficulty knobs.
+ *
+ * Every combination of the listed values is played for {@code --runs} seeds by a
+ * {@link ReferencePilot} on all cores, and the score distribution and survival
+ * curve of each combination are written to {@code summary.csv}, {@code survival.csv}
+ * and {@code report.json} in the {@code --out} directory. Example:
+ *
+ * <pre>
+ * ./gradlew :tuning:run --args="--gravity=2,3,4 --castleVelocity=6,8 --reactionMs=180 --reactionSdMs=0,40"
+ * </pre>
+ *
+ * Knob options take comma separated lists and default to {@link Difficulty#DEFAULT}.
+ */
+public final class DifficultySweep {
+
+    private static final int[] SURVIVAL_MARKS = { 10, 30, 60, 120 };
+    private static final double[] PERCENTILES = { 0.10, 0.50, 0.90, 0.99 };
+
+    private DifficultySweep() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> opts = parseArgs(args);
+        Difficulty d = Difficulty.DEFAULT;
+
+        int runs = intOpt(opts, "runs", 2_000);
+        long maxTicks = intOpt(opts, "maxTicks", (int) (10 * 60 * SweepStats.TICKS_PER_SECOND));
+        int width = intOpt(opts, "width", HeadlessSimulator.REFERENCE_WIDTH);
+        int height = intOpt(opts, "height", HeadlessSimulator.REFERENCE_HEIGHT);
+        int margin = intOpt(opts, "margin", 60);
+        int threads = intOpt(opts, "threads", Runtime.getRuntime().availableProcessors());
+        File out = new File(opts.getOrDefault("out", "sweep"));
+
+        List<Difficulty> difficulties = new ArrayList<>();
+        for (int gapDivisor : intList(opts, "gapDivisor", d.gapDivisor))
+        for (int minGapDivisor : intList(opts, "minGapDivisor", d.minGapDivisor))
+        for (int gapShrinkDivisor : intList(opts, "gapShrinkDivisor", d.gapShrinkDivisor))
+        for (int shrinkEvery : intList(opts, "shrinkEvery", d.shrinkEvery))
+        for (int castleVelocity : intList(opts, "castleVelocity", d.castleVelocity))
+        for (int gravity : intList(opts, "gravity", d.gravity))
+        for (int flapVelocity : intList(opts, "flapVelocity", d.flapVelocity))
+        for (int coinEvery : intList(opts, "coinEvery", d.coinEvery)) {
+            difficulties.add(new Difficulty(gapDivisor, minGapDivisor, gapShrinkDivisor, shrinkEvery,
+                    castleVelocity, gravity, flapVelocity, coinEvery));
+        }
+
+        List<SweepConfig> configs = new ArrayList<>();
+        for (Difficulty difficulty : difficulties)
+        for (double mean : doubleList(opts, "reactionMs", 0))
+        for (double sd : doubleList(opts, "reactionSdMs", 0)) {
+            configs.add(new SweepConfig(difficulty, mean, sd, margin, width, height, maxTicks));
+        }
+
+        System.out.printf(Locale.ROOT, "%d configurations x %d runs on %d threads%n",
+                configs.size(), runs, threads);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        List<SweepStats> results = new ArrayList<>();
+        long totalTicks = 0;
+        long start = System.nanoTime();
+        try {
+            for (SweepConfig config : configs) {
+                SweepStats stats = pool.invoke(new SweepTask(config, 0, runs));
+                results.add(stats);
+                totalTicks += stats.ticks();
+                System.out.printf(Locale.ROOT, "  %s -> mean %.1f, median %d, p90 %d%n", config,
+                        stats.meanScore(), stats.scorePercentile(0.5), stats.scorePercentile(0.9));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        if (!out.isDirectory() && !out.mkdirs()) {
+            throw new IOException("Cannot create " + out);
+        }
+        writeSummaryCsv(new File(out, "summary.csv"), configs, results);
+        writeSurvivalCsv(new File(out, "survival.csv"), results);
+        writeJson(new File(out, "report.json"), configs, results, runs);
+
+        System.out.printf(Locale.ROOT, "%,d ticks in %.2f s (%,.0f ticks/s), report in %s%n",
+                totalTicks, seconds, totalTicks / seconds, out.getAbsolutePath());
+    }
+
+    // ---------- REPORTS ----------
+    private static void writeSummaryCsv(File file, List<SweepConfig> configs, List<SweepStats> results)
+            throws IOException {
+        try (PrintWriter w = new PrintWriter(file, StandardCharsets.UTF_8)) {
+            StringBuilder header = new StringBuilder(
+                    "config,gapDivisor,minGapDivisor,gapShrinkDivisor,shrinkEvery,castleVelocity,"
+                            + "gravity,flapVelocity,coinEvery,reactionMs,reactionSdMs,runs,meanScore");
+            for (double p : PERCENTILES) header.append(",p").append(Math.round(p * 100));
+            header.append(",maxScore,medianSurvivalS");
+            for (int s : SURVIVAL_MARKS) header.append(",alive").append(s).append('s');
+            header.append(",survivedAll");
+            w.println(header);
+
+            for (int i = 0; i < configs.size(); i++) {
+                SweepConfig c = configs.get(i);
+                Difficulty d = c.difficulty;
+                SweepStats r = results.get(i);
+                StringBuilder row = new StringBuilder();
+                row.append(i).append(',').append(d.gapDivisor).append(',').append(d.minGapDivisor)
+                        .append(',').append(d.gapShrinkDivisor).append(',').append(d.shrinkEvery)
+                        .append(',').append(d.castleVelocity).append(',').append(d.gravity)
+                        .append(',').append(d.flapVelocity).append(',').append(d.coinEvery)
+                        .append(',').append(num(c.reactionMeanMillis)).append(',').append(num(c.reactionStdDevMillis))
+                        .append(',').append(r.runs()).append(',').append(num(r.meanScore()));
+                for (double p : PERCENTILES) row.append(',').append(r.scorePercentile(p));
+                row.append(',').append(r.maxScore()).append(',').append(r.medianSurvivalSeconds());
+                for (int s : SURVIVAL_MARKS) row.append(',').append(num(r.survivalAt(s)));
+                row.append(',').append(r.survivors());
+                w.println(row);
+            }
+        }
+    }
+
+    // Long format, one row per configuration and second, so it plots straight from a spreadsheet.
+    private static void writeSurvivalCsv(File file, List<SweepStats> results) throws IOException {
+        try (PrintWriter w = new PrintWriter(file, StandardCharsets.UTF_8)) {
+            w.println("config,second,alive");
+            for (int i = 0; i < results.size(); i++) {
+                SweepStats r = results.get(i);
+                for (int s = 0; s <= r.curveLength(); s++) {
+                    w.println(i + "," + s + "," + num(r.survivalAt(s)));
+                }
+            }
+        }
+    }
+
+    private static void writeJson(File file, List<SweepConfig> configs, List<SweepStats> results, int runs)
+            throws IOException {
+        try (PrintWriter w = new PrintWriter(file, StandardCharsets.UTF_8)) {
+            w.println("{");
+            w.println("  \"runsPerConfig\": " + runs + ",");
+            w.println("  \"ticksPerSecond\": " + SweepStats.TICKS_PER_SECOND + ",");
+            w.println("  \"configs\": [");
+            for (int i = 0; i < configs.size(); i++) {
+                SweepConfig c = configs.get(i);
+                Difficulty d = c.difficulty;
+                SweepStats r = results.get(i);
+
+                w.println("    {");
+                w.println("      \"difficulty\": {\"gapDivisor\": " + d.gapDivisor
+                        + ", \"minGapDivisor\": " + d.minGapDivisor
+                        + ", \"gapShrinkDivisor\": " + d.gapShrinkDivisor
+                        + ", \"shrinkEvery\": " + d.shrinkEvery
+                        + ", \"castleVelocity\": " + d.castleVelocity
+                        + ", \"gravity\": " + d.gravity
+                        + ", \"flapVelocity\": " + d.flapVelocity
+                        + ", \"coinEvery\": " + d.coinEvery + "},");
+                w.println("      \"pilot\": {\"reactionMs\": " + num(c.reactionMeanMillis)
+                        + ", \"reactionSdMs\": " + num(c.reactionStdDevMillis)
+                        + ", \"margin\": " + c.margin + "},");
+
+                StringBuilder percentiles = new StringBuilder();
+                for (double p : PERCENTILES) {
+                    if (percentiles.length() > 0) percentiles.append(", ");
+                    percentiles.append("\"p").append(Math.round(p * 100)).append("\": ").append(r.scorePercentile(p));
+                }
+                w.println("      \"score\": {\"mean\": " + num(r.meanScore()) + ", " + percentiles
+                        + ", \"max\": " + r.maxScore() + "},");
+
+                StringBuilder histogram = new StringBuilder();
+                for (int s = 0; s <= r.maxScore(); s++) {
+                    if (s > 0) histogram.append(", ");
+                    histogram.append(r.scoreCount(s));
+                }
+                w.println("      \"scoreHistogram\": [" + histogram + "],");
+
+                StringBuilder curve = new StringBuilder();
+                for (int s = 0; s <= r.curveLength(); s++) {
+                    if (s > 0) curve.append(", ");
+                    curve.append(num(r.survivalAt(s)));
+                }
+                w.println("      \"survivalBySecond\": [" + curve + "],");
+                w.println("      \"survivedAll\": " + r.survivors());
+                w.println(i + 1 < configs.size() ? "    }," : "    }");
+            }
+            w.println("  ]");
+            w.println("}");
+        }
+    }
+
+    private static String num(double v) {
+        return String.format(Locale.ROOT, "%.4f", v);
+    }
+
+    // ---------- ARGUMENTS ----------
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            opts.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return opts;
+    }
+
+    private static int intOpt(Map<String, String> opts, String name, int fallback) {
+        String v = opts.get(name);
+        return v == null ? fallback : Integer.parseInt(v.trim());
+    }
+
+    private static int[] intList(Map<String, String> opts, String name, int fallback) {
+        String v = opts.get(name);
+        if (v == null) return new int[] { fallback };
+        String[] parts = v.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) values[i] = Integer.parseInt(parts[i].trim());
+        return values;
+    }
+
+    private static double[] doubleList(Map<String, String> opts, String name, double fallback) {
+        String v = opts.get(name);
+        if (v == null) return new double[] { fallback };
+        String[] parts = v.split(",");
+        double[] values = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) values[i] = Double.parseDouble(parts[i].trim());
+        return values;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.soarandsorcery;
+
+/** One point of a sweep: the difficulty knobs plus the screen and the pilot that plays them. */
+final class SweepConfig {
+
+    final Difficulty difficulty;
+    final double reactionMeanMillis;
+    final double reactionStdDevMillis;
+    final int margin;
+    final int canvasWidth;
+    final int canvasHeight;
+    final long maxTicks;
+
+    SweepConfig(Difficulty difficulty, double reactionMeanMillis, double reactionStdDevMillis,
+                int margin, int canvasWidth, int canvasHeight, long maxTicks) {
+        this.difficulty = difficulty;
+        this.reactionMeanMillis = reactionMeanMillis;
+        this.reactionStdDevMillis = reactionStdDevMillis;
+        this.margin = margin;
+        this.canvasWidth = canvasWidth;
+        this.canvasHeight = canvasHeight;
+        this.maxTicks = maxTicks;
+    }
+
+    @Override
+    public String toString() {
+        return difficulty + " reactionMs=" + reactionMeanMillis + " sd " + reactionStdDevMillis;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.soarandsorcery;
+
+import java.util.Arrays;
+
+/**
+ * Outcome counts for many runs of one configuration: a histogram of final scores
+ * and a histogram of how long runs lasted, in whole seconds of game time. Runs
+ * still alive at the tick limit count as survivors. Partial results from parallel
+ * workers are combined with {@link #merge}.
+ */
+final class SweepStats {
+
+    static final long TICKS_PER_SECOND = 1_000_000_000L / GameWorld.TICK_NANOS;
+
+    private int[] scoreCounts = new int[64];
+    private int[] deathSecondCounts = new int[64];
+    private int runs;
+    private int survivors;
+    private long ticks;
+    private long scoreSum;
+
+    void add(HeadlessSimulator.Result result) {
+        runs++;
+        ticks += result.ticks;
+        scoreSum += result.score;
+        scoreCounts = increment(scoreCounts, result.score);
+        if (result.deathTick < 0) {
+            survivors++;
+        } else {
+            deathSecondCounts = increment(deathSecondCounts, (int) (result.deathTick / TICKS_PER_SECOND));
+        }
+    }
+
+    void merge(SweepStats other) {
+        runs += other.runs;
+        survivors += other.survivors;
+        ticks += other.ticks;
+        scoreSum += other.scoreSum;
+        scoreCounts = addAll(scoreCounts, other.scoreCounts);
+        deathSecondCounts = addAll(deathSecondCounts, other.deathSecondCounts);
+    }
+
+    int runs() { return runs; }
+    int survivors() { return survivors; }
+    long ticks() { return ticks; }
+
+    double meanScore() {
+        return runs == 0 ? 0 : scoreSum / (double) runs;
+    }
+
+    int maxScore() {
+        for (int s = scoreCounts.length - 1; s >= 0; s--) {
+            if (scoreCounts[s] > 0) return s;
+        }
+        return 0;
+    }
+
+    /** Lowest score that at least {@code fraction} of the runs did not beat. */
+    int scorePercentile(double fraction) {
+        if (runs == 0) return 0;
+        long needed = (long) Math.ceil(fraction * runs);
+        long seen = 0;
+        for (int s = 0; s < scoreCounts.length; s++) {
+            seen += scoreCounts[s];
+            if (seen >= Math.max(needed, 1)) return s;
+        }
+        return maxScore();
+    }
+
+    int scoreCount(int score) {
+        return score < scoreCounts.length ? scoreCounts[score] : 0;
+    }
+
+    /** Number of whole seconds covered by the survival curve. */
+    int curveLength() {
+        for (int s = deathSecondCounts.length - 1; s >= 0; s--) {
+            if (deathSecondCounts[s] > 0) return s + 1;
+        }
+        return 0;
+    }
+
+    /** Fraction of runs still going after {@code seconds} seconds of play. */
+    double survivalAt(int seconds) {
+        if (runs == 0) return 0;
+        long dead = 0;
+        for (int s = 0; s < Math.min(seconds, deathSecondCounts.length); s++) {
+            dead += deathSecondCounts[s];
+        }
+        return (runs - dead) / (double) runs;
+    }
+
+    /** Seconds after which half the runs had ended, or -1 if more than half survived. */
+    int medianSurvivalSeconds() {
+        for (int s = 0; s <= curveLength(); s++) {
+            if (survivalAt(s) <= 0.5) return s;
+        }
+        return -1;
+    }
+
+    private static int[] increment(int[] counts, int index) {
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+        }
+        counts[index]++;
+        return counts;
+    }
+
+    private static int[] addAll(int[] into, int[] from) {
+        if (from.length > into.length) {
+            into = Arrays.copyOf(into, from.length);
+        }
+        for (int i = 0; i < from.length; i++) {
+            into[i] += from[i];
+        }
+        return into;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.soarandsorcery;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays the seeds {@code from..to} of one configuration, halving the range until
+ * it is small enough for a single worker. Every leaf owns its simulator and pilot,
+ * so workers share nothing but the immutable {@link SweepConfig}.
+ */
+final class SweepTask extends RecursiveTask<SweepStats> {
+
+    private static final long serialVersionUID = 1L;
+    private static final int RUNS_PER_LEAF = 32;
+
+    private final SweepConfig config;
+    private final long from;
+    private final long to;
+
+    SweepTask(SweepConfig config, long from, long to) {
+        this.config = config;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected SweepStats compute() {
+        if (to - from <= RUNS_PER_LEAF) {
+            return play();
+        }
+
+        long mid = (from + to) >>> 1;
+        SweepTask left = new SweepTask(config, from, mid);
+        SweepTask right = new SweepTask(config, mid, to);
+        left.fork();
+        SweepStats stats = right.compute();
+        stats.merge(left.join());
+        return stats;
+    }
+
+    private SweepStats play() {
+        HeadlessSimulator sim = new HeadlessSimulator(config.canvasWidth, config.canvasHeight, config.difficulty);
+        ReferencePilot pilot = new ReferencePilot(config.reactionMeanMillis, config.reactionStdDevMillis, config.margin);
+
+        SweepStats stats = new SweepStats();
+        for (long seed = from; seed < to; seed++) {
+            stats.add(sim.run(seed, pilot, config.maxTicks));
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.soarandsorcery;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class SweepTaskTest {
+
+    private static final SweepConfig CONFIG = new SweepConfig(Difficulty.DEFAULT, 120, 40, 60,
+            HeadlessSimulator.REFERENCE_WIDTH, HeadlessSimulator.REFERENCE_HEIGHT, 3_000);
+
+    @Test
+    public void parallelSweep_matchesSequentialRuns() {
+        SweepStats parallel = new ForkJoinPool(4).invoke(new SweepTask(CONFIG, 0, 500));
+
+        SweepStats sequential = new SweepStats();
+        HeadlessSimulator sim = new HeadlessSimulator();
+        ReferencePilot pilot = new ReferencePilot(120, 40, 60);
+        for (int seed = 0; seed < 500; seed++) {
+            sequential.add(sim.run(seed, pilot, 3_000));
+        }
+
+        assertEquals(sequential.runs(), parallel.runs());
+        assertEquals(sequential.ticks(), parallel.ticks());
+        assertEquals(sequential.meanScore(), parallel.meanScore(), 0);
+        assertEquals(sequential.scorePercentile(0.9), parallel.scorePercentile(0.9));
+        assertEquals(sequential.survivalAt(30), parallel.survivalAt(30), 0);
+    }
+
+    @Test
+    public void stats_percentilesAndSurvival() {
+        SweepStats stats = new SweepStats();
+        long perSecond = SweepStats.TICKS_PER_SECOND;
+        for (int score = 1; score <= 10; score++) {
+            stats.add(new HeadlessSimulator.Result(score, score * perSecond, GameWorld.DeathCause.FLOOR, score * perSecond));
+        }
+        stats.add(new HeadlessSimulator.Result(20, -1, GameWorld.DeathCause.NONE, 100 * perSecond));
+
+        assertEquals(11, stats.runs());
+        assertEquals(1, stats.survivors());
+        assertEquals(1, stats.scorePercentile(0));
+        assertEquals(6, stats.scorePercentile(0.5));
+        assertEquals(20, stats.maxScore());
+        assertEquals(1.0, stats.survivalAt(1), 0);
+        assertEquals(1 / 11.0, stats.survivalAt(11), 1e-9);
+        assertEquals(7, stats.medianSurvivalSeconds());
+    }
+}